@@ -0,0 +1,66 @@
+package lightsim;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import lightsim.LightArray.Light;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures SpriteController.findAdjacentLights() for every light in the
+ * combined grid, about half of them dark, as a snake's head or tail
+ * would look for its next light.
+ *
+ * Run with "ant bench -Dbench.args=AdjacencyBenchmark".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdjacencyBenchmark {
+
+    // "default" is geometry.properties; "large" is EncodeBenchmark's
+    // 16000 lights.
+    @Param({"default", "large"})
+    String geometry;
+
+    ArrayList<Light> lights;
+    Adjacency adjacency;
+    ArrayList<Light> adjacent = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LightArray array = new LightArray(geometry.equals("large")
+                                          ? EncodeBenchmark.largeGeometry()
+                                          : Geometry.getDefault());
+        LSUtils.setSeed(1);
+        for (int i = 0; i < array.getLightCount(); i++) {
+            array.setRGB(i, LSUtils.random.nextBoolean() ? 0xFF0000 : 0);
+        }
+        lights = array.getLights();
+        adjacency = array.getAdjacency(Adjacency.FACES);
+    }
+
+    @Benchmark
+    public int findAdjacentLights() {
+        int found = 0;
+        for (int i = 0; i < lights.size(); i++) {
+            SpriteController.findAdjacentLights(lights.get(i), adjacency, null, adjacent);
+            found += adjacent.size();
+        }
+        return found;
+    }
+}
@@ -0,0 +1,65 @@
+package lightsim;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one frame of AnimationScheduler with thousands of fades in
+ * flight on the large benchmark installation: starting the frame's new
+ * fades, then updating all of them. With the GC profiler that
+ * "ant bench" turns on, gc.alloc.rate.norm should be about zero.
+ *
+ * Run with "ant bench -Dbench.args=AnimationBenchmark".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimationBenchmark {
+    static final double FRAME_SECONDS = 1 / LeanExec.FRAMERATE_HZ;
+    static final double FADE_SECONDS = 4;
+
+    // Fades in flight. Each frame starts enough new ones to keep it there.
+    @Param({"1000", "10000"})
+    int sparkles;
+
+    LightArray lights;
+    AnimationScheduler scheduler;
+    double time;
+    double toStart;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        lights = new LightArray(EncodeBenchmark.largeGeometry());
+        scheduler = new AnimationScheduler(lights);
+        LSUtils.setSeed(1);
+        time = 0;
+    }
+
+    @Benchmark
+    public AnimationScheduler frame() {
+        time += FRAME_SECONDS;
+        toStart += sparkles * FRAME_SECONDS / FADE_SECONDS;
+        for (; toStart >= 1; toStart--) {
+            int light = LSUtils.random.nextInt(lights.getLightCount());
+            scheduler.start(light, LSUtils.random.nextInt(0x1000000), 0, time,
+                            FADE_SECONDS, AnimationScheduler.LINEAR);
+        }
+        scheduler.update(time);
+        return scheduler;
+    }
+}
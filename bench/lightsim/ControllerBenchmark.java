@@ -0,0 +1,78 @@
+package lightsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long each controller's step() takes. A frame at 60 Hz has
+ * 16.6 ms for everything, so a controller needs to step in well under
+ * that on the Pi.
+ *
+ * Run with "ant bench". Each step advances animation time by one 60 Hz
+ * frame, as LeanExec would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerBenchmark {
+    static final double FRAME_SECONDS = 1 / LeanExec.FRAMERATE_HZ;
+
+    // The names of the controllers in LightSim.createControllers(), in
+    // order. JMH needs them as constants; setUp() fails every run if the
+    // two lists have drifted apart.
+    @Param({"Simple Snakes", "Snake", "Color Cube", "Diamonds", "Game of Life",
+            "Life 3D", "Hello World", "Pulsed Wave", "Shooting Stars", "Spiral",
+            "String IDs", "Times Square", "Star Bursts", "Sparkles", "Wave"})
+    String controllerName;
+
+    LightArray lights;
+    LightController controller;
+    double time;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchFieldException {
+        lights = new LightArray();
+        ArrayList<String> names = new ArrayList<>();
+        for (LightController c : LightSim.createControllers()) {
+            if (c.name().equals(controllerName)) {
+                controller = c;
+            }
+            names.add(c.name());
+        }
+        List<String> params = Arrays.asList(ControllerBenchmark.class
+            .getDeclaredField("controllerName").getAnnotation(Param.class).value());
+        if (!params.equals(names)) {
+            throw new IllegalStateException("controllerName params " + params
+                                            + " don't match the registered controllers " + names);
+        }
+        if (controller == null) {
+            throw new IllegalStateException("No controller named \"" + controllerName
+                                            + "\"; registered controllers are " + names);
+        }
+        controller.init(lights);
+        time = 0;
+    }
+
+    @Benchmark
+    public boolean step() {
+        time += FRAME_SECONDS;
+        return controller.step(time);
+    }
+}
@@ -0,0 +1,76 @@
+package lightsim;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long SpiWriter takes to encode a frame of packed colors
+ * into its wire buffers, for the installation as shipped and for a much
+ * larger one. Only the encoding is timed, not the transfer.
+ *
+ * Run with "ant bench -Dbench.args=EncodeBenchmark".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodeBenchmark {
+
+    // "default" is geometry.properties; "large" is eight 10x20x10
+    // fixtures on four channels, 16000 lights in all.
+    @Param({"default", "large"})
+    String geometry;
+
+    SpiWriter writer;
+    int rgb[];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LightArray lights = new LightArray(geometry.equals("large")
+                                           ? largeGeometry()
+                                           : Geometry.getDefault());
+        writer = SpiWriter.getWriter(lights, new LoopbackSpiTransport(lights.getChannelCount(), null));
+        rgb = new int[lights.getLightCount()];
+        LSUtils.setSeed(1);
+        for (int i = 0; i < rgb.length; i++) {
+            rgb[i] = LSUtils.random.nextInt(0x1000000);
+        }
+    }
+
+    @Benchmark
+    public SpiWriter encode() {
+        writer.encode(rgb);
+        return writer;
+    }
+
+    static Geometry largeGeometry() throws IOException {
+        StringBuilder config = new StringBuilder("fixtures =");
+        for (int i = 0; i < 8; i++) {
+            config.append(" f").append(i);
+        }
+        config.append('\n');
+        for (int i = 0; i < 8; i++) {
+            String prefix = "fixture.f" + i + ".";
+            config.append(prefix).append("size = 10 20 10\n");
+            config.append(prefix).append("origin = ").append(i * 12).append(" 0 0\n");
+            config.append(prefix).append("grid = ").append(i * 10).append(" 0 0\n");
+            config.append(prefix).append("channel = ").append(i / 2).append('\n');
+        }
+        return Geometry.load(new ByteArrayInputStream(config.toString().getBytes("UTF-8")));
+    }
+}
@@ -0,0 +1,59 @@
+package lightsim;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one LifeBoard generation, from the strip Game of Life plays on
+ * up to boards far bigger than the installation, to see how many
+ * generations a frame can afford.
+ *
+ * Run with "ant bench -Dbench.args=LifeBenchmark".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LifeBenchmark {
+
+    // Width x height x depth; a depth of 1 plays 2D Life, otherwise 3D.
+    @Param({"5x50x1", "5x10x5", "256x256x1", "64x64x64"})
+    String size;
+
+    LifeBoard board;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        String dims[] = size.split("x");
+        int nx = Integer.parseInt(dims[0]);
+        int ny = Integer.parseInt(dims[1]);
+        int nz = Integer.parseInt(dims[2]);
+        board = new LifeBoard(nx, ny, nz, true, nz == 1 ? LifeBoard.LIFE : LifeBoard.LIFE_3D);
+        LSUtils.setSeed(1);
+        for (int z = 0; z < nz; z++) {
+            for (int y = 0; y < ny; y++) {
+                for (int x = 0; x < nx; x++) {
+                    board.set(x, y, z, LSUtils.random.nextInt(3) == 0);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean generation() {
+        return board.step();
+    }
+}
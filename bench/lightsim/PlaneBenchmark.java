@@ -0,0 +1,91 @@
+package lightsim;
+
+import java.util.concurrent.TimeUnit;
+import lightsim.LightArray.Light;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures LightArray's plane shifts and plane save/restore over all the
+ * lights, and LightVolume's shift for comparison. With the GC profiler
+ * that "ant bench" turns on, gc.alloc.rate.norm should be about zero
+ * bytes per operation for every one of them.
+ *
+ * Run with "ant bench -Dbench.args=PlaneBenchmark".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlaneBenchmark {
+    LightArray lights;
+    Light all[][][];
+    LightVolume volume;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lights = new LightArray();
+        all = lights.getAllLights();
+        LSUtils.setSeed(1);
+        for (int i = 0; i < lights.getLightCount(); i++) {
+            lights.setRGB(i, LSUtils.random.nextInt(0x1000000));
+        }
+        volume = new LightVolume(lights, all);
+    }
+
+    @Benchmark
+    public LightArray shiftAlongX() {
+        lights.shiftAlongXAxis(1, all);
+        return lights;
+    }
+
+    @Benchmark
+    public LightArray shiftAlongY() {
+        lights.shiftAlongYAxis(1, all);
+        return lights;
+    }
+
+    @Benchmark
+    public LightArray shiftAlongZ() {
+        lights.shiftAlongZAxis(1, all);
+        return lights;
+    }
+
+    @Benchmark
+    public LightArray shiftOutAlongY() {
+        lights.shiftOutAlongYAxis(1, all);
+        return lights;
+    }
+
+    @Benchmark
+    public LightArray saveAndRestorePlanes() {
+        PlaneArena.Plane x = lights.saveXPlane(0, all);
+        PlaneArena.Plane y = lights.saveYPlane(0, all);
+        PlaneArena.Plane z = lights.saveZPlane(0, all);
+        lights.setXPlane(x, all.length - 1, all);
+        lights.setYPlane(y, all[0].length - 1, all);
+        lights.setZPlane(z, all[0][0].length - 1, all);
+        lights.releaseTemps();
+        return lights;
+    }
+
+    @Benchmark
+    public LightVolume volumeShiftAndApply() {
+        volume.shift(0, 1);
+        volume.shift(1, 1);
+        volume.shift(2, 1);
+        volume.apply();
+        return volume;
+    }
+}
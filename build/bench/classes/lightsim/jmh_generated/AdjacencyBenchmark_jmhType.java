@@ -0,0 +1,4 @@
+package lightsim.jmh_generated;
+public class AdjacencyBenchmark_jmhType extends AdjacencyBenchmark_jmhType_B3 {
+}
+
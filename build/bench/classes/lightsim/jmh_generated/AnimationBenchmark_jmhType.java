@@ -0,0 +1,4 @@
+package lightsim.jmh_generated;
+public class AnimationBenchmark_jmhType extends AnimationBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package lightsim.jmh_generated;
+public class ControllerBenchmark_jmhType extends ControllerBenchmark_jmhType_B3 {
+}
+
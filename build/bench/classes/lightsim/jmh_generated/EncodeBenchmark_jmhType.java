@@ -0,0 +1,4 @@
+package lightsim.jmh_generated;
+public class EncodeBenchmark_jmhType extends EncodeBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package lightsim.jmh_generated;
+public class LifeBenchmark_jmhType extends LifeBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package lightsim.jmh_generated;
+public class PlaneBenchmark_jmhType extends PlaneBenchmark_jmhType_B3 {
+}
+
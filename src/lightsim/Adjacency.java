@@ -0,0 +1,116 @@
+package lightsim;
+
+import java.util.ArrayList;
+import lightsim.LightArray.Light;
+
+/**
+ * The neighbours of every light in a grid of lights, in compressed
+ * sparse row form: the neighbours of the light with index i are the
+ * light indices neighbor(begin(i)) to neighbor(end(i) - 1).
+ *
+ * Building the table walks the 26 cells around each light once, with
+ * all the bounds checks; afterwards a light's neighbours are a range of
+ * one int[]. Lights that are not in the grid have no neighbours.
+ * Neighbours are listed in the order of a walk over dx, then dy, then
+ * dz, each from -1 to 1.
+ *
+ * Get these from LightArray.getAdjacency(), which builds each one once.
+ */
+public class Adjacency {
+    /** The 6 lights that share a face. */
+    public static final int FACES = 0;
+    /** The 18 lights that share a face or an edge. */
+    public static final int EDGES = 1;
+    /** All 26 lights around, corners included. */
+    public static final int ALL = 2;
+
+    final ArrayList<Light> lights;  // By light index.
+    final int offsets[];            // Light i's range starts at offsets[i].
+    final int neighbors[];
+
+    public Adjacency(Light grid[][][], ArrayList<Light> lights, int kind) {
+        if (kind < FACES || kind > ALL) {
+            throw new IllegalArgumentException("Bad adjacency kind " + kind);
+        }
+        this.lights = lights;
+        offsets = new int[lights.size() + 1];
+
+        // Count each light's neighbours, turn the counts into offsets,
+        // then fill in the neighbours.
+        int counts[] = new int[lights.size()];
+        walkAll(grid, kind, counts, 0);
+        for (int i = 0; i < counts.length; i++) {
+            offsets[i + 1] = offsets[i] + counts[i];
+        }
+        neighbors = new int[offsets[counts.length]];
+        walkAll(grid, kind, offsets.clone(), 1);
+    }
+
+    private void walkAll(Light grid[][][], int kind, int fill[], int pass) {
+        for (int x = 0; x < grid.length; x++) {
+            for (int y = 0; y < grid[x].length; y++) {
+                for (int z = 0; z < grid[x][y].length; z++) {
+                    Light light = grid[x][y][z];
+                    if (light != null) {
+                        walk(grid, x, y, z, kind, light.index, fill, pass);
+                    }
+                }
+            }
+        }
+    }
+
+    // On pass 0 counts the neighbours of the light at (x, y, z) into
+    // fill[index]; on pass 1 stores them from fill[index] on.
+    private void walk(Light grid[][][], int x, int y, int z, int kind,
+                      int index, int fill[], int pass) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    int away = Math.abs(dx) + Math.abs(dy) + Math.abs(dz);
+                    if (away == 0 || away > kind + 1) {
+                        continue;
+                    }
+                    int nx = x + dx, ny = y + dy, nz = z + dz;
+                    if (nx < 0 || nx >= grid.length
+                            || ny < 0 || ny >= grid[nx].length
+                            || nz < 0 || nz >= grid[nx][ny].length
+                            || grid[nx][ny][nz] == null) {
+                        continue;
+                    }
+                    if (pass == 0) {
+                        fill[index]++;
+                    } else {
+                        neighbors[fill[index]++] = grid[nx][ny][nz].index;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Where light index's neighbours start. */
+    public int begin(int index) {
+        return offsets[index];
+    }
+
+    /** Where light index's neighbours end, exclusive. */
+    public int end(int index) {
+        return offsets[index + 1];
+    }
+
+    public int degree(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /** The light index at position k of the table. */
+    public int neighbor(int k) {
+        return neighbors[k];
+    }
+
+    /** The light at position k of the table. */
+    public Light neighborLight(int k) {
+        return lights.get(neighbors[k]);
+    }
+
+    public int[] getOffsets()   { return offsets; }
+    public int[] getNeighbors() { return neighbors; }
+}
@@ -1,62 +1,81 @@
 package lightsim;
 
+/**
+ * Animation time, in seconds, derived from the monotonic System.nanoTime()
+ * so it neither jumps when NTP adjusts the wall clock nor loses precision
+ * to millisecond ticks.
+ *
+ * LeanExec calls tick() once per frame. Everything that renders that frame
+ * then sees the same timestamp from getCurrentTime(), however many times
+ * it is called.
+ */
 public class AnimationClock {
     // Speed multiplier. 1 is real time, 0.5 is half time, etc.
     double speed = 1;
-    
-    // Last wallclock time in seconds.
-    double lastWallclockTimeSeconds = 0;
-    
-    // Current "abstract" time in seconds. At each tick, this is incremented
-    // by the delta in wallclock time multiplied by the current speed.
-    double currentAbstractTimeSeconds = 0;
-    
+
+    // Abstract time is baseTimeSeconds plus the nanoTime elapsed since
+    // baseNanos, scaled by speed. The base moves only when the speed
+    // changes, so rounding errors don't accumulate frame after frame.
+    long baseNanos;
+    double baseTimeSeconds = 0;
+
+    // Timestamp of the current frame.
+    double frameTimeSeconds = 0;
+
     public AnimationClock() {
-        lastWallclockTimeSeconds = System.currentTimeMillis() / 1e3;
+        baseNanos = nanoTime();
     }
-    
+
+    /**
+     * Advances the clock to now and returns the new frame time.
+     */
+    public synchronized double tick() {
+        double now = timeAt(nanoTime());
+        // Never hand out a frame time earlier than the previous one.
+        if (now > frameTimeSeconds) {
+            frameTimeSeconds = now;
+        }
+        return frameTimeSeconds;
+    }
+
     /**
      * Get the current animation clock time.
-     * @return The current animation clock time. This time is subject to the
-     *     clock speed, so it may differ from real time.
+     * @return The time of the current frame, as of the last tick(). This
+     *     time is subject to the clock speed, so it may differ from real
+     *     time.
      */
-    public double getCurrentTime() {
-        return updateAbstractTime();
-    }
-    
-    public void setSpeed(double speed) {
-        // Update the abstract time to bring us up to now, given the
-        // previous clock speed.
-        updateAbstractTime();
+    public synchronized double getCurrentTime() {
+        return frameTimeSeconds;
+    }
+
+    public synchronized void setSpeed(double speed) {
+        // Rebase at the current instant so time carries on smoothly at
+        // the new speed from where the old speed left it.
+        long now = nanoTime();
+        baseTimeSeconds = timeAt(now);
+        baseNanos = now;
         this.speed = speed;
     }
-    
-    public double getSpeed() {
+
+    public synchronized double getSpeed() {
         return speed;
     }
 
-    public void reset() {
-        currentAbstractTimeSeconds = 0;
-        lastWallclockTimeSeconds = System.currentTimeMillis() / 1e3;
+    public synchronized void reset() {
+        baseNanos = nanoTime();
+        baseTimeSeconds = 0;
+        frameTimeSeconds = 0;
+    }
+
+    private double timeAt(long nanos) {
+        return baseTimeSeconds + (nanos - baseNanos) * speed / 1e9;
     }
-    
+
     /**
-     * Updates the abstract time based on elapsed wallclock time and the
-     * clock's speed.
+     * The time source, in nanoseconds. Only differences between values
+     * are meaningful.
      */
-    private double updateAbstractTime() {
-        double now = getWallclockTime();
-        if (lastWallclockTimeSeconds > 0) {
-           double timeDelta = (now - lastWallclockTimeSeconds) * speed;
-           currentAbstractTimeSeconds += timeDelta;
-        }
-        lastWallclockTimeSeconds = now;
-        return currentAbstractTimeSeconds;
-    }
-    
-    private double getWallclockTime() {
-        return System.currentTimeMillis() / 1e3;
+    protected long nanoTime() {
+        return System.nanoTime();
     }
-    
-    
 }
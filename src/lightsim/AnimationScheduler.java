@@ -0,0 +1,140 @@
+package lightsim;
+
+import java.util.Arrays;
+
+/**
+ * Runs many simple light animations, each fading one light from one
+ * color to another over a span of time, without allocating.
+ *
+ * Animations are stored as parallel primitive arrays rather than objects.
+ * A light has at most one animation; starting another on it replaces the
+ * first in place. A finished animation is removed by moving the last one
+ * into its slot, so removal is O(1) and the arrays stay dense. The arrays
+ * are sized for one animation per light up front, so they never grow.
+ *
+ * For animations that do more than fade a single light, subclass
+ * Animation and use LightController.addAnimation() instead.
+ */
+public class AnimationScheduler {
+    // Easing curves, applied to the animation's progress in [0..1].
+    public static final int LINEAR = 0;
+    public static final int EASE_IN = 1;
+    public static final int EASE_OUT = 2;
+    public static final int EASE_IN_OUT = 3;
+
+    final int store[];          // The LightArray's packed colors.
+
+    // Active animations, in slots 0 to count - 1.
+    final double startTime[];
+    final double duration[];
+    final int light[];
+    final int fromColor[];
+    final int toColor[];
+    final byte easing[];
+    int count;
+
+    // Slot of each light's animation, or -1.
+    final int slotOfLight[];
+
+    public AnimationScheduler(LightArray lights) {
+        store = lights.getColorData();
+        int n = lights.getLightCount();
+        startTime = new double[n];
+        duration = new double[n];
+        light = new int[n];
+        fromColor = new int[n];
+        toColor = new int[n];
+        easing = new byte[n];
+        slotOfLight = new int[n];
+        Arrays.fill(slotOfLight, -1);
+    }
+
+    /** Number of animations running. */
+    public int size() {
+        return count;
+    }
+
+    public boolean isAnimating(int lightIndex) {
+        return slotOfLight[lightIndex] >= 0;
+    }
+
+    /**
+     * Fades light lightIndex from one packed color to another, starting
+     * at start and lasting duration seconds. Replaces any animation the
+     * light already has.
+     */
+    public void start(int lightIndex, int from, int to, double start, double duration, int easing) {
+        int slot = slotOfLight[lightIndex];
+        if (slot < 0) {
+            slot = count++;
+            slotOfLight[lightIndex] = slot;
+            light[slot] = lightIndex;
+        }
+        startTime[slot] = start;
+        this.duration[slot] = duration;
+        fromColor[slot] = from;
+        toColor[slot] = to;
+        this.easing[slot] = (byte)easing;
+    }
+
+    /** Stops the light's animation, leaving the light as it is. */
+    public void cancel(int lightIndex) {
+        int slot = slotOfLight[lightIndex];
+        if (slot >= 0) {
+            remove(slot);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            slotOfLight[light[i]] = -1;
+        }
+        count = 0;
+    }
+
+    /**
+     * Sets every animated light's color for time, and drops the
+     * animations that ended before it. A light whose animation has ended
+     * is left as it is.
+     */
+    public void update(double time) {
+        int i = 0;
+        while (i < count) {
+            double dt = time - startTime[i];
+            if (dt > duration[i]) {
+                remove(i);
+                continue;   // Slot i now holds what was the last animation.
+            }
+            double t = ease(easing[i], dt / duration[i]);
+            store[light[i]] = Colors.interpolate(fromColor[i], toColor[i], t);
+            i++;
+        }
+    }
+
+    private void remove(int slot) {
+        slotOfLight[light[slot]] = -1;
+        int last = --count;
+        if (slot != last) {
+            startTime[slot] = startTime[last];
+            duration[slot] = duration[last];
+            light[slot] = light[last];
+            fromColor[slot] = fromColor[last];
+            toColor[slot] = toColor[last];
+            easing[slot] = easing[last];
+            slotOfLight[light[slot]] = slot;
+        }
+    }
+
+    static double ease(int easing, double t) {
+        switch (easing) {
+            case EASE_IN:
+                return t * t;
+            case EASE_OUT:
+                return t * (2 - t);
+            case EASE_IN_OUT:
+                return t * t * (3 - 2 * t);
+            default:
+                return t;
+        }
+    }
+}
@@ -39,10 +39,13 @@ public class AppleSprite  extends Sprite
         }
 
     LightArray.Light my_light;
+    private Occupancy my_occupancy;
 
-    public AppleSprite (LightArray.Light light)
+    public AppleSprite (LightArray.Light light, Occupancy occupancy)
         {
         my_light = light;
+        my_occupancy = occupancy;
+        occupancy.claim (light, this);
         my_light.setState (Color.RED, true);
         cycle = LSUtils.pickNumber (0, COLOR_RAMP.length-1);
         t_next = 0;
@@ -51,15 +54,30 @@ public class AppleSprite  extends Sprite
     @Override
     public boolean hasLight (LightArray.Light l)   { return l == my_light; }
 
+  // ----- setAlive() --------------------------------------------------
+  //
+  // A dead apple gives up its light, so that it is never found there
+  // again.
+  //
+    @Override
+    public void setAlive (boolean value)
+        {
+        alive = value;
+        if (!alive)
+            my_occupancy.release (my_light, this);
+        }
+
     @Override
     public boolean step (int time)
         {
         if (time > t_next)
           { t_next = time + MY_DT;
             cycle = ++cycle % COLOR_RAMP.length;
-            alive = my_light.color != Color.BLACK;
+            alive = !my_light.isBlack();
             if (alive)
-                my_light.color = COLOR_RAMP[cycle];
+                my_light.setColor (COLOR_RAMP[cycle]);
+              else
+                my_occupancy.release (my_light, this);
             }
         return alive;
         }
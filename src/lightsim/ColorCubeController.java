@@ -22,6 +22,7 @@ import lightsim.LightArray.Light;
 public class ColorCubeController extends LightController
     {
     private Light[][][] all_lights;
+    private LightVolume cube;
     private int nx, ny, nz;
 
     private int next_t = 0;
@@ -54,6 +55,11 @@ public class ColorCubeController extends LightController
             }
         all_lights[0][0][0].setColor(Color.BLACK);
 
+      // The cube scrolls in a ring-buffered copy, so each shift only
+      // moves an origin; step() writes it back once per frame.
+      //
+        cube = new LightVolume (my_light_array, all_lights);
+
         next_t = 0;
         }
 
@@ -81,38 +87,42 @@ public class ColorCubeController extends LightController
         if (next_t == 0)
             next_t = time + MY_DT;
 
+        boolean shifted = false;
         while (next_t <= time)
             {
+            shifted = true;
             next_t += MY_DT;
 
             if (my_step == 0)
                 ;                       // Do nothing
             else if (my_step <= nx+ny+nz)
               { if (0 < my_step && my_step <= nx)
-                    my_light_array.shiftAlongXAxis (1, all_lights);
+                    cube.shift (0, 1);
                   else if (nx < my_step && my_step <= nx+ny)
-                    my_light_array.shiftAlongYAxis (1, all_lights);
+                    cube.shift (1, 1);
                   else
-                    my_light_array.shiftAlongZAxis (1, all_lights);
+                    cube.shift (2, 1);
                 }
             else
               { switch (my_step % 3)
                   { case 0:
-                        my_light_array.shiftAlongXAxis (1, all_lights);
+                        cube.shift (0, 1);
                         break;
                     case 1:
-                        my_light_array.shiftAlongYAxis (1, all_lights);
+                        cube.shift (1, 1);
                         break;
                     case 2:
-                        my_light_array.shiftAlongZAxis (1, all_lights);
+                        cube.shift (2, 1);
                         break;
                     }
-                if (!all_lights[0][0][0].getColor().equals(Color.BLACK))
+                if (cube.getRGB (0,0,0) != 0)
                     my_step = 0;
                 }
 
             increment_step();
             }
+        if (shifted)
+            cube.apply();
 
         return true;
         }
@@ -5,25 +5,92 @@ import java.awt.Color;
 public class Colors {
     // yellow, magenta, cyan are in-between colors.
     static Color SIX_COLOR_PROG[] = {Color.red, Color.magenta, Color.blue, Color.cyan, Color.green, Color.yellow};
-    
+
     public static Color interpolate(Color a, Color b, float t) {
-        float[] aRGB = new float[3];
-        float[] bRGB = new float[3];
-        a.getColorComponents(aRGB);
-        b.getColorComponents(bRGB);
-        float red = aRGB[0] * (1 - t) + bRGB[0] * t;
-        float green = aRGB[1] * (1 - t) + bRGB[1] * t;
-        float blue = aRGB[2] * (1 - t) + bRGB[2] * t;
-        return new Color(red, green, blue);
-    }
-    
+        return new Color(interpolate(a.getRGB(), b.getRGB(), t));
+    }
+
     public static Color sixColorProg(double t) {
-        double t6 = t * 6;
-        int aIndex = ((int)t6) % 6;
-        int bIndex = (aIndex + 1) % 6;
-        Color a = SIX_COLOR_PROG[aIndex];
-        Color b = SIX_COLOR_PROG[bIndex];
-        
-        return interpolate(a, b, (float)(t6 - aIndex));
+        return new Color(sixColorProgRGB(t));
+    }
+
+    // Packed 0xRRGGBB variants. These don't allocate, so they're safe to
+    // call per light per frame.
+
+    public static int rgb(int red, int green, int blue) {
+        return (clampChannel(red) << 16) | (clampChannel(green) << 8) | clampChannel(blue);
+    }
+
+    public static int red(int rgb)   { return (rgb >> 16) & 0xFF; }
+    public static int green(int rgb) { return (rgb >> 8) & 0xFF; }
+    public static int blue(int rgb)  { return rgb & 0xFF; }
+
+    public static int interpolate(int a, int b, double t) {
+        int red = lerp((a >> 16) & 0xFF, (b >> 16) & 0xFF, t);
+        int green = lerp((a >> 8) & 0xFF, (b >> 8) & 0xFF, t);
+        int blue = lerp(a & 0xFF, b & 0xFF, t);
+        return (red << 16) | (green << 8) | blue;
+    }
+
+    public static int scale(int rgb, double intensity) {
+        int red = (int)(((rgb >> 16) & 0xFF) * intensity + 0.5);
+        int green = (int)(((rgb >> 8) & 0xFF) * intensity + 0.5);
+        int blue = (int)((rgb & 0xFF) * intensity + 0.5);
+        return (red << 16) | (green << 8) | blue;
+    }
+
+    /** Adds two colors channel by channel, stopping each at 255. */
+    public static int addSaturate(int a, int b) {
+        // Add the low seven bits of each channel, which cannot carry
+        // into the next channel, then put the top bits back in and see
+        // which channels carried out of their top bit.
+        int low = (a & 0x7F7F7F) + (b & 0x7F7F7F);
+        int high = (a ^ b) & 0x808080;
+        int carries = ((a & b) | (low & high)) & 0x808080;
+        return ((low ^ high) | ((carries >>> 7) * 0xFF)) & 0xFFFFFF;
+    }
+
+    /**
+     * A color from hue, saturation and value, each in [0..1]. Hue wraps
+     * around, so 0 and 1 are both red.
+     */
+    public static int hsv(double hue, double saturation, double value) {
+        return Color.HSBtoRGB((float)hue, (float)saturation, (float)value) & 0xFFFFFF;
+    }
+
+    /**
+     * A bright color wheel over i in [0..255], from cyan through
+     * magenta and yellow and back to cyan. Returns black outside it.
+     */
+    public static int wheel(int i) {
+        if (i < 0 || i > 255) {
+            return 0;
+        }
+        if (i < 85) {
+            return rgb(i * 3, 255 - i * 3, 255);
+        } else if (i < 170) {
+            return rgb(255, (i - 85) * 3, 255 - (i - 85) * 3);
+        } else {
+            return rgb(255 - (i - 170) * 3, 255, (i - 170) * 3);
+        }
+    }
+
+    /**
+     * The six color progression at t, where t in [0..1) runs from red
+     * through magenta, blue, cyan, green and yellow and back to red.
+     * Whole numbers are added to or dropped from t to bring it into
+     * range. Looked up in Palettes.SIX_COLOR, to the nearest 1/1024 of
+     * the way round.
+     */
+    public static int sixColorProgRGB(double t) {
+        return Palettes.SIX_COLOR.sample(t);
+    }
+
+    private static int lerp(int a, int b, double t) {
+        return (int)(a * (1 - t) + b * t + 0.5);
+    }
+
+    private static int clampChannel(int c) {
+        return c < 0 ? 0 : c > 255 ? 255 : c;
     }
 }
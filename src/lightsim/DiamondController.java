@@ -70,13 +70,14 @@ public class DiamondController extends LightController
         nx = 5; ny = 10; nz = 5;
         left_lights = new Light[ny][nx][nz];
         right_lights = new Light[ny][nx][nz];
-        for (Light l : my_light_array.getLights())
-            {
-            if (l.ix < 5)
-                left_lights[l.iy][l.ix][l.iz] = l;
-              else
-                right_lights[l.iy][l.ix-12][l.iz] = l;
-            }
+        Light[][][] left = my_light_array.getLeftLights(),
+                    right = my_light_array.getRightLights();
+        for (int x=0; x<nx; x++)
+            for (int y=0; y<ny; y++)
+                for (int z=0; z<nz; z++)
+                  { left_lights[y][x][z] = left[x][y][z];
+                    right_lights[y][x][z] = right[x][y][z];
+                    }
 
         my_light_array.reset();
 
@@ -0,0 +1,41 @@
+package lightsim;
+
+/**
+ * A complete snapshot of the light colors for one rendered frame, as
+ * packed 0xRRGGBB ints indexed by Light.index. Frames are handed from
+ * LeanExec to readers through a FrameBuffer and are never modified while
+ * a reader holds them.
+ */
+public class Frame {
+    final int[] rgb;
+
+    // Animation clock time the frame was rendered for.
+    double time;
+
+    // Increases by one for each frame published to a FrameBuffer. Zero
+    // means the frame has never been published.
+    long sequence;
+
+    // System.nanoTime() when the frame was queued for transmission.
+    long submitNanos;
+
+    Frame(int numLights) {
+        rgb = new int[numLights];
+    }
+
+    public int[] getColorData() {
+        return rgb;
+    }
+
+    public int getRGB(int index) {
+        return rgb[index];
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,54 @@
+package lightsim;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free triple buffer that hands complete frames from the render
+ * thread to a single reader.
+ *
+ * The writer copies the light array into its back frame and publishes it
+ * by swapping it with the shared middle frame. The reader swaps its front
+ * frame with the middle one whenever a newer frame is waiting. Neither
+ * side blocks, and the frame a reader holds is never written to until the
+ * reader gives it back by asking for a newer one.
+ */
+public class FrameBuffer {
+    private Frame back;   // Owned by the writer.
+    private Frame front;  // Owned by the reader.
+    private final AtomicReference<Frame> middle;
+    // Sequence of the newest frame swapped into middle, set only after
+    // the swap. The reader checks this rather than middle's own sequence,
+    // which the writer may be overwriting.
+    private volatile long published;
+
+    public FrameBuffer(int numLights) {
+        back = new Frame(numLights);
+        front = new Frame(numLights);
+        middle = new AtomicReference<>(new Frame(numLights));
+    }
+
+    /**
+     * Publishes a copy of the given colors as the newest frame. Must only
+     * be called from one thread at a time.
+     */
+    public void publish(int[] rgb, double time) {
+        System.arraycopy(rgb, 0, back.rgb, 0, back.rgb.length);
+        back.time = time;
+        long sequence = published + 1;
+        back.sequence = sequence;
+        back = middle.getAndSet(back);
+        published = sequence;
+    }
+
+    /**
+     * Returns the most recently published frame, or null if nothing has
+     * been published yet. The returned frame stays valid until the next
+     * call to latest().
+     */
+    public Frame latest() {
+        if (published > front.sequence) {
+            front = middle.getAndSet(front);
+        }
+        return front.sequence > 0 ? front : null;
+    }
+}
@@ -0,0 +1,219 @@
+package lightsim;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer/single-consumer queue of frames between the
+ * render thread and a consumer thread such as the transmitter or the
+ * recorder.
+ *
+ * The queue owns a fixed pool of frames. The producer copies each
+ * rendered frame into a free pool frame and enqueues it; the consumer
+ * takes it, sends it, and recycles it. Nothing is allocated after
+ * construction. Both directions are lock-free rings, and the consumer
+ * parks while the queue is empty.
+ */
+public class FrameQueue {
+
+    /** What submit() does when the queue is already full. */
+    public enum FullPolicy {
+        // Discard the oldest queued frame to make room. Keeps latency
+        // low; the wire always gets the newest frames.
+        DROP_OLDEST,
+        // Discard the frame being submitted.
+        DROP_NEWEST,
+        // Wait for the consumer to make room.
+        BLOCK;
+
+        public static FullPolicy fromString(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    // Lock-free ring of frame references. Only the queue's own producer
+    // and consumer touch it, but head is advanced by CAS so that the
+    // producer can also pull the oldest frame back out under DROP_OLDEST.
+    private static class Ring {
+        final Frame slots[];
+        final AtomicLong head = new AtomicLong();  // Next slot to take.
+        final AtomicLong tail = new AtomicLong();  // Next slot to fill.
+
+        Ring(int capacity) {
+            slots = new Frame[capacity];
+        }
+
+        boolean offer(Frame frame) {
+            long t = tail.get();
+            if (t - head.get() >= slots.length) {
+                return false;
+            }
+            slots[(int)(t % slots.length)] = frame;
+            tail.lazySet(t + 1);
+            return true;
+        }
+
+        Frame poll() {
+            while (true) {
+                long h = head.get();
+                if (h == tail.get()) {
+                    return null;
+                }
+                Frame frame = slots[(int)(h % slots.length)];
+                if (head.compareAndSet(h, h + 1)) {
+                    return frame;
+                }
+            }
+        }
+
+        int size() {
+            return (int)(tail.get() - head.get());
+        }
+    }
+
+    private final Ring queued;
+    private final Ring free;
+    private final FullPolicy policy;
+    private volatile Thread consumer;
+    private final AtomicLong dropped = new AtomicLong();
+    // Producer side. A frame that could not be queued, kept for the next
+    // submit() since only the consumer may add to the free ring.
+    private Frame spare;
+
+    public FrameQueue(int numLights, int capacity, FullPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1: " + capacity);
+        }
+        this.policy = policy;
+        queued = new Ring(capacity);
+
+        // Every frame is either queued, free, or held by the consumer
+        // while it transmits.
+        free = new Ring(capacity + 1);
+        for (int i = 0; i < capacity + 1; i++) {
+            free.offer(new Frame(numLights));
+        }
+    }
+
+    public FullPolicy getPolicy() {
+        return policy;
+    }
+
+    public int getCapacity() {
+        return queued.slots.length;
+    }
+
+    public int size() {
+        return queued.size();
+    }
+
+    /** Number of frames discarded because the queue was full. */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Producer side. Copies rgb into a pooled frame and queues it,
+     * applying the queue's FullPolicy if there is no room.
+     */
+    public void submit(int rgb[], double time, long sequence) {
+        Frame frame = null;
+        if (queued.size() >= queued.slots.length) {
+            switch (policy) {
+                case DROP_OLDEST:
+                    // Reuse the oldest frame directly rather than passing
+                    // it through the free ring, which only the consumer
+                    // may add to.
+                    frame = queued.poll();
+                    if (frame != null) {
+                        dropped.incrementAndGet();
+                    }
+                    break;
+                case DROP_NEWEST:
+                    dropped.incrementAndGet();
+                    return;
+                case BLOCK:
+                    while (queued.size() >= queued.slots.length) {
+                        LockSupport.parkNanos(this, 100000);
+                    }
+                    break;
+            }
+        }
+        if (frame == null && spare != null) {
+            frame = spare;
+            spare = null;
+        }
+        if (frame == null) {
+            // With fewer than capacity frames queued and at most one held
+            // by the consumer, the pool always has a frame to spare.
+            frame = free.poll();
+        }
+        System.arraycopy(rgb, 0, frame.rgb, 0, frame.rgb.length);
+        frame.time = time;
+        frame.sequence = sequence;
+        frame.submitNanos = System.nanoTime();
+        if (!queued.offer(frame)) {
+            // Shouldn't happen with one producer, but don't lose the frame
+            // from the pool if it does.
+            spare = frame;
+            dropped.incrementAndGet();
+            return;
+        }
+
+        Thread waiting = consumer;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+
+    /**
+     * Consumer side. Waits for the next queued frame. The frame must be
+     * handed back with recycle() once it has been sent.
+     */
+    public Frame take() throws InterruptedException {
+        consumer = Thread.currentThread();
+        Frame frame;
+        while ((frame = queued.poll()) == null) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return frame;
+    }
+
+    /** Like take(), but returns null if no frame arrives within timeoutNanos. */
+    public Frame poll(long timeoutNanos) throws InterruptedException {
+        consumer = Thread.currentThread();
+        long deadline = System.nanoTime() + timeoutNanos;
+        Frame frame;
+        while ((frame = queued.poll()) == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return frame;
+    }
+
+    /** Consumer side. Returns a sent frame to the pool. */
+    public void recycle(Frame frame) {
+        free.offer(frame);
+    }
+
+    /**
+     * Consumer side. Recycles every queued frame unsent, e.g. when the
+     * consumer gives up, so that a producer blocked on a full queue can
+     * carry on.
+     */
+    public void clear() {
+        Frame frame;
+        while ((frame = queued.poll()) != null) {
+            free.offer(frame);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package lightsim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records frames to an append-only binary file that PlaybackController
+ * can play back.
+ *
+ * The file is a 16-byte header followed by fixed-size frame records, all
+ * big-endian:
+ *
+ *   header:  "LSFR"  int version  int lightCount  int loopFrame
+ *   frame:   double time  int rgb[lightCount]
+ *
+ * Playback runs to the last frame and then loops back to loopFrame, so a
+ * recording can have a lead-in that plays only once.
+ *
+ * Times are animation seconds; colors are packed 0xRRGGBB, indexed by
+ * Light.index. Times never go backwards: when the animation clock is
+ * reset part-way through a recording, as it is when the controller
+ * changes or the show stops, the recorder shifts the times that follow
+ * so they carry on from the last frame written.
+ *
+ * As a FrameSink the recorder writes on its own thread, and the render
+ * thread blocks only if the disk falls a second behind. If a write
+ * fails, the recorder logs it and stops, and later frames are dropped
+ * rather than held up waiting for it. write() records synchronously,
+ * e.g. from the simulation runner.
+ */
+public class FrameRecorder implements FrameSink, Runnable {
+    static final int MAGIC = 0x4C534652;  // "LSFR"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int QUEUE_FRAMES = 60;
+
+    final String path;
+    final int lightCount;
+    final FileChannel channel;
+    final ByteBuffer record;
+    FrameQueue queue;
+    Thread thread;
+    volatile boolean closed;
+    long framesWritten;
+
+    // Added to each frame's time to keep times increasing across clock
+    // resets; see write().
+    double timeOffset;
+    double lastTime;
+    double lastStep;
+
+    public FrameRecorder(String path, int lightCount) throws IOException {
+        this(path, lightCount, 0);
+    }
+
+    public FrameRecorder(String path, int lightCount, int loopFrame) throws IOException {
+        this.path = path;
+        this.lightCount = lightCount;
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                                   StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        record = ByteBuffer.allocate(recordSize(lightCount));
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(lightCount).putInt(loopFrame);
+        header.flip();
+        writeFully(header);
+    }
+
+    static int recordSize(int lightCount) {
+        return 8 + 4 * lightCount;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getFramesWritten() {
+        return framesWritten;
+    }
+
+    /** Starts the writer thread that drains frames given to submit(). */
+    public void start() {
+        queue = new FrameQueue(lightCount, QUEUE_FRAMES, FrameQueue.FullPolicy.BLOCK);
+        thread = new Thread(this, "LightSim recorder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void submit(int rgb[], double time, long sequence) {
+        if (!closed) {
+            queue.submit(rgb, time, sequence);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                Frame frame = queue.poll(100000000L);
+                if (frame == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                write(frame.getColorData(), frame.getTime());
+                queue.recycle(frame);
+            }
+        } catch (InterruptedException e) {
+            Console.log("Recording to %s interrupted.", path);
+        } catch (IOException e) {
+            Console.log("Error recording frames to %s: %s", path, e);
+        } finally {
+            // However the writer stopped, stop taking frames, and free a
+            // submit() that is waiting on a full queue.
+            closed = true;
+            queue.clear();
+        }
+    }
+
+    public synchronized void write(int rgb[], double time) throws IOException {
+        double recorded = time + timeOffset;
+        if (framesWritten > 0) {
+            if (recorded < lastTime) {
+                // The clock has been reset. Put this frame one frame's
+                // length after the last one, and shift the rest with it.
+                timeOffset += lastTime + lastStep - recorded;
+                recorded = lastTime + lastStep;
+            } else if (recorded > lastTime) {
+                lastStep = recorded - lastTime;
+            }
+        }
+        lastTime = recorded;
+
+        record.clear();
+        record.putDouble(recorded);
+        record.asIntBuffer().put(rgb, 0, lightCount);
+        record.position(record.capacity());
+        record.flip();
+        writeFully(record);
+        framesWritten++;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** Stops recording, waiting for queued frames to be written. */
+    public void close() throws IOException {
+        closed = true;
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package lightsim;
+
+/**
+ * Something LeanExec hands every finished frame to, such as the SPI
+ * transmitter or a recorder.
+ */
+public interface FrameSink {
+
+    /**
+     * Called on the render thread once per frame. rgb is the light array's
+     * live color store, indexed by Light.index, and is only valid for the
+     * duration of the call, so sinks copy what they need and return
+     * quickly.
+     */
+    public void submit(int rgb[], double time, long sequence);
+}
@@ -0,0 +1,108 @@
+package lightsim;
+
+/**
+ * Where the frame budget goes. LeanExec times each stage of every frame
+ * and the transmitter times each SPI write; the histograms cover the
+ * current reporting window and are cleared when it is logged. Frame,
+ * overrun and missed tick counts run from startup.
+ */
+public class FrameStats {
+    static final double LOG_INTERVAL_SECONDS = 60;
+
+    final long framePeriodNanos;
+
+    final LatencyHistogram step = new LatencyHistogram("step");
+    final LatencyHistogram publish = new LatencyHistogram("publish");
+    final LatencyHistogram notify = new LatencyHistogram("notify");
+    final LatencyHistogram frame = new LatencyHistogram("frame");
+    final LatencyHistogram spiWrite = new LatencyHistogram("spiWrite");
+    final LatencyHistogram queueWait = new LatencyHistogram("queueWait");
+
+    // Written by the render thread only.
+    volatile long frames;
+    volatile long overruns;
+    volatile long missedTicks;
+    long lastFrameStartNanos;
+    long windowStartNanos;
+
+    volatile FrameTransmitter transmitter;
+
+    public FrameStats(double framerateHz) {
+        framePeriodNanos = (long)(1e9 / framerateHz);
+        windowStartNanos = System.nanoTime();
+    }
+
+    void setTransmitter(FrameTransmitter transmitter) {
+        this.transmitter = transmitter;
+    }
+
+    /** Forget the last frame's start, e.g. after a pause, so the gap isn't counted as missed ticks. */
+    void restart() {
+        lastFrameStartNanos = 0;
+    }
+
+    void frameStarted(long now) {
+        if (lastFrameStartNanos != 0) {
+            // Ticks that never ran at all, e.g. because the render thread
+            // was descheduled or stalled by GC.
+            long missed = (now - lastFrameStartNanos + framePeriodNanos / 2) / framePeriodNanos - 1;
+            if (missed > 0) {
+                missedTicks += missed;
+            }
+        }
+        lastFrameStartNanos = now;
+    }
+
+    void frameFinished(long start, long end) {
+        frame.record(end - start);
+        frames++;
+        if (end - start > framePeriodNanos) {
+            overruns++;
+        }
+    }
+
+    public long getDroppedFrames() {
+        FrameTransmitter t = transmitter;
+        return t == null ? 0 : t.getQueue().getDroppedCount();
+    }
+
+    public long getSkippedTransfers() {
+        FrameTransmitter t = transmitter;
+        return t == null ? 0 : t.spiWriter.getSkippedTransfers();
+    }
+
+    /** True once the current window has run for LOG_INTERVAL_SECONDS. */
+    boolean windowElapsed(long now) {
+        return now - windowStartNanos >= LOG_INTERVAL_SECONDS * 1e9;
+    }
+
+    /** Logs the current window and starts a new one. */
+    void logAndReset(String controllerName, long now) {
+        Console.log("Frame stats for %s over %.0f s: %s; %s; %s; %s; %s; %s; "
+                    + "%d frames, %d overruns, %d missed ticks, %d dropped, %d unchanged transfers skipped",
+                    controllerName, (now - windowStartNanos) / 1e9,
+                    frame, step, publish, notify, spiWrite, queueWait,
+                    frames, overruns, missedTicks, getDroppedFrames(), getSkippedTransfers());
+        for (LatencyHistogram histogram : histograms()) {
+            histogram.reset();
+        }
+        windowStartNanos = now;
+    }
+
+    LatencyHistogram[] histograms() {
+        return new LatencyHistogram[] {frame, step, publish, notify, spiWrite, queueWait};
+    }
+
+    public String toJson() {
+        String json = "{\"frames\":" + frames +
+            ",\"overruns\":" + overruns +
+            ",\"missedTicks\":" + missedTicks +
+            ",\"droppedFrames\":" + getDroppedFrames() +
+            ",\"skippedTransfers\":" + getSkippedTransfers() +
+            ",\"framePeriodMs\":" + framePeriodNanos / 1e6;
+        for (LatencyHistogram histogram : histograms()) {
+            json += ",\"" + histogram.getName() + "\":" + histogram.toJson();
+        }
+        return json + "}";
+    }
+}
@@ -0,0 +1,65 @@
+package lightsim;
+
+/**
+ * Sends frames to the SpiWriter on a dedicated thread, so a slow SPI
+ * transfer never eats into the render loop's frame budget. The render
+ * thread only pays for copying the frame into the queue.
+ *
+ * How long each write takes and how long frames wait in the queue are
+ * recorded in the exec's FrameStats.
+ */
+public class FrameTransmitter implements FrameSink, Runnable {
+    final SpiWriter spiWriter;
+    final FrameQueue queue;
+    final FrameStats stats;
+    Thread thread;
+
+    // Written only by the transmitter thread.
+    volatile long framesSent;
+
+    public FrameTransmitter(SpiWriter spiWriter, FrameQueue queue, FrameStats stats) {
+        this.spiWriter = spiWriter;
+        this.queue = queue;
+        this.stats = stats;
+    }
+
+    public void start() {
+        thread = new Thread(this, "LightSim transmitter");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /** Called from the render thread. Never blocks unless the queue's policy is BLOCK. */
+    @Override
+    public void submit(int rgb[], double time, long sequence) {
+        queue.submit(rgb, time, sequence);
+    }
+
+    public FrameQueue getQueue() {
+        return queue;
+    }
+
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            Frame frame;
+            try {
+                frame = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            long start = System.nanoTime();
+            spiWriter.writeFrame(frame);
+            long end = System.nanoTime();
+            stats.queueWait.record(start - frame.submitNanos);
+            stats.spiWrite.record(end - start);
+            queue.recycle(frame);
+            framesSent++;
+        }
+    }
+}
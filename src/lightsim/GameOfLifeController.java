@@ -22,11 +22,13 @@ import lightsim.LightArray.Light;
 public class GameOfLifeController extends LightController
     {
     Light[][]  left_lights, right_lights;
-    byte[][][] left_data, right_data;
+    Light[][][] left_cube, right_cube;
+    LifeBoard left_board, right_board;
     int nx, ny;
     int left_wait = 0, right_wait = 0;
+    boolean three_d;
 
-    public String name()    { return "Game of Life"; }
+    public String name()    { return three_d ? "Life 3D" : "Game of Life"; }
     Color[] colors = { Color.GREEN, Color.CYAN,
                         new Color(125,125,255), new Color(255,125,255),
                         Color.WHITE };
@@ -42,33 +44,61 @@ public class GameOfLifeController extends LightController
     int t_next;
     static final int MY_DT = 250;
 
+  // In 3D each cube is seeded with this fraction of live cells, and
+  // reseeded once it dies out, freezes, or has run this many generations.
+  // A fresh soup is fast-forwarded a few generations before it is shown,
+  // past the first burst of deaths.
+  //
+    static final double SEED_DENSITY = 0.3;
+    static final int MAX_GENERATIONS = 400;
+    static final int SEED_GENERATIONS = 2;
+
+  // ----- constructor ------------------------------------------------
+  //
+  // The flat game plays 2D Life on a 5 x 50 strip wound through each
+  // cube.  The 3D game plays 3D Life over the whole of each cube, with
+  // its faces wrapped around to meet each other.
+  //
+    public GameOfLifeController()
+        {
+        this (false);
+        }
+
+    public GameOfLifeController (boolean _three_d)
+        {
+        three_d = _three_d;
+        }
+
   // ----- init() -----------------------------------------------------
   //
     public void init (LightArray light_array)
         {
         super.init (light_array);
 
-        nx = 5;
-        ny = 50;
-        left_lights = new Light[nx][ny];
-        right_lights = new Light[nx][ny];
-
-        for (Light l : my_light_array.getLights())
-            {
-            if (l.ix < 5)
-              { left_lights[l.ix][l.iy + 10*(4-l.iz)] = l;
-                l.color = colors[l.iz];
-                }
-              else
-              { right_lights[16-l.ix][l.iy + 10*l.iz] = l;
-                l.color = colors[4-l.iz];
-                }
+        left_cube = my_light_array.getLeftLights();
+        right_cube = my_light_array.getRightLights();
+        if (three_d)
+          { left_board = new LifeBoard (5, 10, 5, true, LifeBoard.LIFE_3D);
+            right_board = new LifeBoard (5, 10, 5, true, LifeBoard.LIFE_3D);
+            seed (left_board);
+            seed (right_board);
+            }
+          else
+          { nx = 5;
+            ny = 50;
+            left_lights = new Light[nx][ny];
+            right_lights = new Light[nx][ny];
+            for (int x=0; x<5; x++)
+                for (int y=0; y<10; y++)
+                    for (int z=0; z<5; z++)
+                      { left_lights[x][y + 10*(4-z)] = left_cube[x][y][z];
+                        right_lights[4-x][y + 10*z] = right_cube[x][y][z];
+                        }
+            left_board = new LifeBoard (nx, ny, 1, false, LifeBoard.LIFE);
+            right_board = new LifeBoard (nx, ny, 1, false, LifeBoard.LIFE);
             }
 
-        left_data = new byte[2][nx][ny];
-        right_data = new byte[2][nx][ny];
-
-        setLights (0);
+        set_lights();
         t_next = 0;
         }
 
@@ -81,14 +111,17 @@ public class GameOfLifeController extends LightController
             {
             if (my_step > 0)
                 {
-                int n = my_step % 2;
-                int nm1 = (my_step-1) % 2;
-
-                left_wait = insert_spaceship (left_data[nm1], left_wait);
-                right_wait = insert_spaceship (right_data[nm1],right_wait);
-
-                calc_next_gen (left_data[nm1], left_data[n]);
-                calc_next_gen (right_data[nm1], right_data[n]);
+                if (three_d)
+                  { step_3d (left_board);
+                    step_3d (right_board);
+                    }
+                  else
+                  { left_wait = insert_spaceship (left_board, left_wait);
+                    right_wait = insert_spaceship (right_board, right_wait);
+                    left_board.step();
+                    right_board.step();
+                    }
+                set_lights();
                 }
 
             increment_step();
@@ -97,91 +130,62 @@ public class GameOfLifeController extends LightController
         return true;
         }
 
-  // ----- calc_next_gen() --------------------------------------------
+  // ----- step_3d() --------------------------------------------------
   //
-    private void calc_next_gen (byte[][] data, byte[][] data_tp1)
+    private void step_3d (LifeBoard board)
         {
-        int n_neighbors;
-        int nxm1 = nx-1, nxm2 = nx-2;
-        int nym1 = ny-1, nym2 = ny-2;
-
-      // Calculate corners
-      //
-        n_neighbors = data[0][1] + data[1][1] + data[1][0];
-        data_tp1[0][0] = next_gen (n_neighbors, data[0][0]);
-
-        n_neighbors = data[nxm2][0] + data[nxm2][1] + data[nxm1][1];
-        data_tp1[nxm1][0] = next_gen (n_neighbors, data[nxm1][0]);
-
-        n_neighbors = data[0][nym2] + data[1][nym2] + data[1][nym1];
-        data_tp1[0][nym1] = next_gen (n_neighbors, data[0][nym1]);
-
-        n_neighbors = data[nxm2][nym1] + data[nxm2][nym2] + data[nxm1][nym2];
-        data_tp1[nxm1][nym1] = next_gen (n_neighbors, data[nxm1][nym1]);
-
-      // Calculate bottom and top
-      //
-        for (int ix=1; ix<nxm1; ix++)
-            {
-            n_neighbors = data[ix-1][0] + data[ix-1][1] + data[ix][1]
-                            + data[ix+1][0] + data[ix+1][1];
-            data_tp1[ix][0] = next_gen (n_neighbors, data[ix][0]);
-
-            n_neighbors = data[ix-1][nym1] + data[ix-1][nym2]
-                            + data[ix][nym2]
-                            + data[ix+1][nym2] + data[ix+1][nym1];
-            data_tp1[ix][nym1] = next_gen (n_neighbors, data[ix][nym1]);
-            }
-
-      // Calculate sides
-      //
-        for (int iy=1; iy<nym1; iy++)
-            {
-            n_neighbors = data[0][iy-1] + data[0][iy+1]
-                            + data[1][iy-1] + data[1][iy] + data[1][iy+1];
-            data_tp1[0][iy] = next_gen (n_neighbors, data[0][iy]);
-
-            n_neighbors = data[nxm2][iy-1] + data[nxm2][iy]
-                            + data[nxm2][iy+1]
-                            + data[nxm1][iy-1] + data[nxm1][iy+1];
-            data_tp1[nxm1][iy] = next_gen (n_neighbors, data[nxm1][iy]);
-            }
+        boolean changed = board.step();
+        if (!changed
+              || board.getPopulation() == 0
+              || board.getGeneration() >= MAX_GENERATIONS)
+            seed (board);
+        }
 
-      // Calculate main space
-      //
-        for (int ix=1; ix<nxm1; ix++)
-            {
-            for (int iy=1; iy<nym1; iy++)
-                {
-                n_neighbors
-                    = data[ix-1][iy-1] + data[ix-1][iy] + data[ix-1][iy+1]
-                      + data[ix][iy-1] + data[ix][iy+1]
-                      + data[ix+1][iy-1] + data[ix+1][iy] + data[ix+1][iy+1];
-                data_tp1[ix][iy] = next_gen (n_neighbors, data[ix][iy]);
-                }
-            }
+  // ----- seed() -----------------------------------------------------
+  //
+    private void seed (LifeBoard board)
+        {
+        board.clear();
+        for (int x=0; x<board.getWidth(); x++)
+            for (int y=0; y<board.getHeight(); y++)
+                for (int z=0; z<board.getDepth(); z++)
+                    board.set (x, y, z, random.nextDouble() < SEED_DENSITY);
+        board.step (SEED_GENERATIONS);
         }
 
-    private byte next_gen (int n_neighbors, byte alive)
+  // ----- set_lights() -----------------------------------------------
+  //
+  // Live cells show the color of their layer; dead cells are dark.
+  //
+    private void set_lights()
         {
-        if (alive == 1)
-            {
-            if (n_neighbors == 2 || n_neighbors == 3)   return 1;
+        if (three_d)
+          { for (int x=0; x<5; x++)
+                for (int y=0; y<10; y++)
+                    for (int z=0; z<5; z++)
+                      { left_cube[x][y][z].setRGB (
+                            left_board.get (x, y, z) ? colors[z].getRGB() : 0);
+                        right_cube[x][y][z].setRGB (
+                            right_board.get (x, y, z) ? colors[4-z].getRGB() : 0);
+                        }
             }
-        else if (n_neighbors == 3)
-            {
-            return 1;
+          else
+          { for (int x=0; x<nx; x++)
+                for (int y=0; y<ny; y++)
+                  { int rgb = colors[4 - y/10].getRGB();
+                    left_lights[x][y].setRGB (left_board.get (x, y, 0) ? rgb : 0);
+                    right_lights[x][y].setRGB (right_board.get (x, y, 0) ? rgb : 0);
+                    }
             }
-        return 0;
         }
 
-    private int insert_spaceship (byte[][] game_cells, int wait)
+    private int insert_spaceship (LifeBoard board, int wait)
         {
         if (wait > 0)
             {
             return --wait;
             }
-          else if (Math.random() > 0.10)
+          else if (random.nextDouble() > 0.10)
             {
             return wait;
             }
@@ -192,8 +196,7 @@ public class GameOfLifeController extends LightController
               { int mask = 0b10000;
                 int ship_row = spaceship[iy];
                 for (int ix=0; ix<nx; ix++)
-                  { game_cells[ix][iy] =
-                            (byte) (((mask & ship_row) != 0) ? 1 : 0);
+                  { board.set (ix, iy, 0, (mask & ship_row) != 0);
                     mask = mask >>> 1;
                     }
                 }
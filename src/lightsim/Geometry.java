@@ -0,0 +1,194 @@
+package lightsim;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * The layout of the installation: which boxes of lights there are, where
+ * they sit, and how their LEDs are chained onto SPI channels. Read from a
+ * properties file (geometry.properties next to this class is the
+ * default; see it for the format) so that a different installation needs
+ * no recompile.
+ */
+public class Geometry {
+    public static final String DEFAULT_RESOURCE = "geometry.properties";
+
+    /** One box of lights. */
+    public static class Fixture {
+        public final String name;
+        public final int size[];       // nx, ny, nz
+        public final int origin[];     // Installation position of light (0,0,0).
+        public final int grid[];       // Offset in the combined grid.
+        public final int channel;
+
+        // Wiring: axes from outermost to innermost, and whether each is
+        // walked from its high end. The innermost axis runs along a string.
+        final int wiringAxes[];
+        final boolean wiringReversed[];
+
+        Fixture(String name, int size[], int origin[], int grid[], int channel,
+                int wiringAxes[], boolean wiringReversed[]) {
+            this.name = name;
+            this.size = size;
+            this.origin = origin;
+            this.grid = grid;
+            this.channel = channel;
+            this.wiringAxes = wiringAxes;
+            this.wiringReversed = wiringReversed;
+        }
+
+        public int getLightCount() {
+            return size[0] * size[1] * size[2];
+        }
+
+        public int getStringCount() {
+            return getLightCount() / getStringLength();
+        }
+
+        public int getStringLength() {
+            return size[wiringAxes[2]];
+        }
+
+        /**
+         * Returns the local {ix, iy, iz} of the light at position along
+         * string number string of this fixture.
+         */
+        public int[] wiredLight(int string, int position) {
+            int indices[] = new int[3];
+            int steps[] = {string / size[wiringAxes[1]], string % size[wiringAxes[1]], position};
+            for (int i = 0; i < 3; i++) {
+                int axis = wiringAxes[i];
+                indices[axis] = wiringReversed[i] ? size[axis] - 1 - steps[i] : steps[i];
+            }
+            return indices;
+        }
+    }
+
+    final List<Fixture> fixtures;
+    final String signature;
+
+    Geometry(List<Fixture> fixtures, String signature) {
+        this.fixtures = Collections.unmodifiableList(fixtures);
+        this.signature = signature;
+    }
+
+    public List<Fixture> getFixtures() {
+        return fixtures;
+    }
+
+    public int getChannelCount() {
+        int channels = 0;
+        for (Fixture fixture : fixtures) {
+            channels = Math.max(channels, fixture.channel + 1);
+        }
+        return channels;
+    }
+
+    /**
+     * A short hash of the layout. Frames are indexed by light, so anything
+     * stored per light (bakes, for instance) is only valid for the
+     * geometry it was made with.
+     */
+    public String getSignature() {
+        return signature;
+    }
+
+    /** The geometry that ships with LightSim. */
+    public static Geometry getDefault() {
+        try (InputStream in = Geometry.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing " + DEFAULT_RESOURCE);
+            }
+            return load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't read " + DEFAULT_RESOURCE, e);
+        }
+    }
+
+    public static Geometry load(String path) throws IOException {
+        try (InputStream in = new FileInputStream(path)) {
+            return load(in);
+        }
+    }
+
+    public static Geometry load(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        String names = required(properties, "fixtures");
+
+        ArrayList<Fixture> fixtures = new ArrayList<>();
+        StringWriter canonical = new StringWriter();
+        for (String name : names.trim().split("[\\s,]+")) {
+            String prefix = "fixture." + name + ".";
+            int size[] = ints(properties, prefix + "size", null);
+            int origin[] = ints(properties, prefix + "origin", new int[3]);
+            int grid[] = ints(properties, prefix + "grid", new int[3]);
+            int channel = Integer.parseInt(required(properties, prefix + "channel").trim());
+            String wiring[] = properties.getProperty(prefix + "wiring", "+x +z +y").trim().split("\\s+");
+            if (wiring.length != 3) {
+                throw new IOException(prefix + "wiring must name three axes");
+            }
+            int axes[] = new int[3];
+            boolean reversed[] = new boolean[3];
+            boolean used[] = new boolean[3];
+            for (int i = 0; i < 3; i++) {
+                String axis = wiring[i];
+                reversed[i] = axis.startsWith("-");
+                axes[i] = "xyz".indexOf(axis.charAt(axis.length() - 1));
+                if (axes[i] < 0 || used[axes[i]]) {
+                    throw new IOException(prefix + "wiring must name x, y and z once each");
+                }
+                used[axes[i]] = true;
+            }
+            if (channel < 0 || size[0] <= 0 || size[1] <= 0 || size[2] <= 0) {
+                throw new IOException("Bad size or channel for fixture " + name);
+            }
+            fixtures.add(new Fixture(name, size, origin, grid, channel, axes, reversed));
+            canonical.write(String.format("%s %d %d %d %d %d %d %d %d %d %d %s%n", name,
+                                          size[0], size[1], size[2],
+                                          origin[0], origin[1], origin[2],
+                                          grid[0], grid[1], grid[2], channel,
+                                          String.join(" ", wiring)));
+        }
+        if (fixtures.isEmpty()) {
+            throw new IOException("No fixtures defined");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(canonical.toString().getBytes("UTF-8"));
+        return new Geometry(fixtures, String.format("%08x", crc.getValue()));
+    }
+
+    private static String required(Properties properties, String key) throws IOException {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IOException("Geometry is missing " + key);
+        }
+        return value;
+    }
+
+    private static int[] ints(Properties properties, String key, int defaults[]) throws IOException {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            if (defaults == null) {
+                throw new IOException("Geometry is missing " + key);
+            }
+            return defaults;
+        }
+        String parts[] = value.trim().split("[\\s,]+");
+        if (parts.length != 3) {
+            throw new IOException(key + " needs three numbers");
+        }
+        int result[] = new int[3];
+        for (int i = 0; i < 3; i++) {
+            result[i] = Integer.parseInt(parts[i]);
+        }
+        return result;
+    }
+}
@@ -53,17 +53,14 @@ public class HelloWorldController extends LightController
             nxm1 = nx - 1;
 
             lights = new Light[10][5][10];
-            for (Light l : my_light_array.getLights())
-                {
-                if (l.ix < 5)
-                    {
-                    lights[l.ix][l.iz][l.iy] = l;
-                    }
-                  else
-                    {
-                    lights[5+(l.ix-12)][l.iz][l.iy] = l;
-                    }
-                }
+            Light[][][] left = my_light_array.getLeftLights(),
+                        right = my_light_array.getRightLights();
+            for (int x=0; x<5; x++)
+                for (int y=0; y<10; y++)
+                    for (int z=0; z<5; z++)
+                      { lights[x][z][y] = left[x][y][z];
+                        lights[5+x][z][y] = right[x][y][z];
+                        }
             }
 
         my_font = new LSFont_5x7();
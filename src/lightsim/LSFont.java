@@ -60,11 +60,11 @@ public abstract class LSFont
                 Light light = lights[ix][iy];
                 if ((mask & column) !=0 )
                   {
-                    light.color = foreground;
+                    light.setColor (foreground);
                     }
                   else
                   {
-                    light.color = Color.BLACK;
+                    light.setColor (Color.BLACK);
                     }
                 mask = mask >>> 1;
                 }
@@ -100,11 +100,11 @@ public abstract class LSFont
             Light light = lights[iy];
             if ((mask & column_raster) !=0 )
               {
-                light.color = foreground;
+                light.setColor (foreground);
                 }
               else
               {
-                light.color = background;
+                light.setColor (background);
                 }
             mask = mask >>> 1;
             }
@@ -144,11 +144,11 @@ public abstract class LSFont
             Light light = lights[ix][y_offset];
             if ((mask & column) !=0 )
               {
-                light.color = foreground;
+                light.setColor (foreground);
                 }
               else
               {
-                light.color = background;
+                light.setColor (background);
                 }
             }
         }
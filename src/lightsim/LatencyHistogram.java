@@ -0,0 +1,114 @@
+package lightsim;
+
+import java.util.Locale;
+
+/**
+ * A fixed-size histogram of durations, for timing things every frame
+ * without allocating. Values are bucketed in microseconds: exactly below
+ * 16 us, and above that with eight buckets per power of two, so any
+ * reported percentile is within 12.5% of the true value. Durations past
+ * about a minute land in the last bucket.
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKETS = 8;
+    static final int NUM_BUCKETS = 200;
+
+    final String name;
+    final long counts[] = new long[NUM_BUCKETS];
+    long count;
+    long totalNanos;
+    long maxNanos;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[bucketFor(nanos / 1000)]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getMeanMillis() {
+        return count == 0 ? 0 : totalNanos / (double)count / 1e6;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * Returns the duration below which the given fraction of the recorded
+     * values fall, in milliseconds. The result is the upper edge of the
+     * bucket holding that value, but never more than the maximum.
+     */
+    public synchronized double getPercentileMillis(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long)Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketLimitMicros(i) / 1e3, maxNanos / 1e6);
+            }
+        }
+        return maxNanos / 1e6;
+    }
+
+    public synchronized void reset() {
+        java.util.Arrays.fill(counts, 0);
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    public synchronized String toJson() {
+        // Locale.ROOT, so the decimal point is always a '.' in JSON.
+        return String.format(Locale.ROOT, "{\"count\":%d,\"mean\":%.3f,\"p50\":%.3f,\"p99\":%.3f,\"max\":%.3f}",
+                             count, getMeanMillis(), getPercentileMillis(0.5),
+                             getPercentileMillis(0.99), getMaxMillis());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s p50 %.2f p99 %.2f max %.2f ms", name,
+                             getPercentileMillis(0.5), getPercentileMillis(0.99),
+                             getMaxMillis());
+    }
+
+    static int bucketFor(long micros) {
+        if (micros < 2 * SUB_BUCKETS) {
+            return (int)micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros) - 3;
+        int mantissa = (int)(micros >> exponent);   // 8 to 15
+        int bucket = SUB_BUCKETS + exponent * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+        return Math.min(bucket, NUM_BUCKETS - 1);
+    }
+
+    // One past the largest value, in microseconds, that lands in bucket.
+    static long bucketLimitMicros(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long mantissa = SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return (mantissa + 1) << exponent;
+    }
+}
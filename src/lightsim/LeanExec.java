@@ -1,6 +1,7 @@
 package lightsim;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -14,27 +15,64 @@ public class LeanExec implements Runnable {
     LightArray lights;
     AnimationClock clock;
     SpiWriter spiWriter;
+
+    // Frames are sent to the SPI writer on the transmitter's own thread.
+    // It is created with the first frame, using the policy and queue size
+    // in effect at that point.
+    FrameTransmitter transmitter;
+    FrameQueue.FullPolicy transmitPolicy = FrameQueue.FullPolicy.DROP_OLDEST;
+    int transmitQueueSize = 2;
+    long frameCount;
+
+    // Per-stage frame timing, reported in the server's status and logged
+    // once a minute.
+    final FrameStats stats = new FrameStats(FRAMERATE_HZ);
     ArrayList<ExecListener> listeners;
 
+    // One triple buffer per frame reader. Controllers render into the
+    // light array; each finished frame is copied into every reader's
+    // buffer so readers never see a half-rendered frame.
+    final CopyOnWriteArrayList<FrameBuffer> frameReaders;
+
+    // Everything else that gets each finished frame: the transmitter, once
+    // it starts, and a recorder while recording.
+    final CopyOnWriteArrayList<FrameSink> frameSinks;
+    FrameRecorder recorder;
+
     boolean isRunning;
     boolean isPaused;
     boolean isScheduled;
 
     LightController controller;
+    // What actually renders frames: the controller itself, or a player
+    // for its bake if there is one.
+    LightController renderer;
+    ShowBaker showBaker;
     Clock sunClock;
     Timer sunEventTimer;
     Clock.Event nextSunEvent;
 
     public LeanExec(LightArray lights) {
+        this(lights, null);
+    }
+
+    // If transport is null, LeanExec drives the Pi's SPI hardware when it
+    // is available and otherwise writes nothing.
+    public LeanExec(LightArray lights, SpiTransport transport) {
 
         this.lights = lights;
 
         clock = new AnimationClock();
         sunClock = new Clock();
         listeners = new ArrayList<>();
-        spiWriter = SpiWriter.getWriter();
+        frameReaders = new CopyOnWriteArrayList<>();
+        frameSinks = new CopyOnWriteArrayList<>();
+        spiWriter = transport != null ? SpiWriter.getWriter(lights, transport)
+                                      : SpiWriter.getWriter(lights);
         if (spiWriter == null) {
             Console.log("Couldn't get writer. This is totes normal if not running on the Pi.");
+        } else {
+            Console.log("Writing lights through the %s SPI transport.", spiWriter.getTransport().name());
         }
     }
 
@@ -45,10 +83,11 @@ public class LeanExec implements Runnable {
         }
         Console.log("starting");
         if (!isPaused) {
-            controller.init(lights);
+            renderer.init(lights);
         }
 
         isRunning = true;
+        stats.restart();
 
         executor = new ScheduledThreadPoolExecutor(1);
 
@@ -99,6 +138,28 @@ public class LeanExec implements Runnable {
         return isScheduled;
     }
 
+    // Brightness and gamma are applied by the SPI writer as it encodes
+    // each frame, so they only affect the real lights.
+    public void setBrightness(double brightness) {
+        if (spiWriter != null) {
+            spiWriter.setBrightness(brightness);
+        }
+    }
+
+    public double getBrightness() {
+        return spiWriter != null ? spiWriter.getBrightness() : 1.0;
+    }
+
+    public void setGamma(double gamma) {
+        if (spiWriter != null) {
+            spiWriter.setGamma(gamma);
+        }
+    }
+
+    public double getGamma() {
+        return spiWriter != null ? spiWriter.getGamma() : 1.0;
+    }
+
     public Clock.Event nextSunEvent() {
         return nextSunEvent;
     }
@@ -158,47 +219,172 @@ public class LeanExec implements Runnable {
         return nextEvent;
     }
 
+    /**
+     * Registers a new frame reader. The returned buffer always holds the
+     * most recently completed frame and can be read from any one thread
+     * without locking.
+     */
+    public FrameBuffer addFrameReader() {
+        FrameBuffer frames = new FrameBuffer(lights.getLightCount());
+        frameReaders.add(frames);
+        return frames;
+    }
+
     public void addListener(ExecListener listener) {
         if (!listeners.contains(listener)) {
             listeners.add(listener);
         }
     }
 
-    public void setController(LightController controller) {
-        controller.init(lights);
+    // Synchronized with run(), which steps the renderer and updates the
+    // stats on the render thread.
+    public synchronized void setController(LightController controller) {
+        // Close out the stats window so each one covers a single controller.
+        if (this.controller != null && stats.frames > 0) {
+            stats.logAndReset(this.controller.name(), System.nanoTime());
+        }
+        LightController baked = showBaker != null ? showBaker.load(controller) : null;
+        if (baked != null) {
+            Console.log("Playing %s from its bake.", controller.name());
+        }
+        renderer = baked != null ? baked : controller;
+        renderer.init(lights);
         clock.reset();
         this.controller = controller;
         notifyStateChange();
     }
 
+    /** Returns the SPI writer, or null if the lights aren't connected. */
+    public SpiWriter getSpiWriter() {
+        return spiWriter;
+    }
+
+    public void addFrameSink(FrameSink sink) {
+        frameSinks.addIfAbsent(sink);
+    }
+
+    public void removeFrameSink(FrameSink sink) {
+        frameSinks.remove(sink);
+    }
+
+    /**
+     * Records every frame from now on to path, replacing any recording
+     * already in progress. See FrameRecorder for the format.
+     */
+    public synchronized void startRecording(String path) throws IOException {
+        stopRecording();
+        recorder = new FrameRecorder(path, lights.getLightCount());
+        recorder.start();
+        addFrameSink(recorder);
+        Console.log("Recording frames to %s", path);
+    }
+
+    public synchronized void stopRecording() {
+        if (recorder == null) {
+            return;
+        }
+        removeFrameSink(recorder);
+        try {
+            recorder.close();
+            Console.log("Recorded %d frames to %s", recorder.getFramesWritten(), recorder.getPath());
+        } catch (IOException e) {
+            Console.log("Error closing recording %s: %s", recorder.getPath(), e);
+        }
+        recorder = null;
+    }
+
+    /**
+     * Serves controllers from their bakes in baker's directory when they
+     * have valid ones. Takes effect from the next setController().
+     */
+    public void setShowBaker(ShowBaker baker) {
+        showBaker = baker;
+    }
+
+    public FrameStats getStats() {
+        return stats;
+    }
+
     public String getControllerName() {
         return controller.name();
     }
 
+    /**
+     * Sets what happens when the transmitter falls behind the render loop.
+     * Only takes effect if called before the first frame is rendered.
+     */
+    public void setTransmitPolicy(FrameQueue.FullPolicy policy, int queueSize) {
+        if (transmitter != null) {
+            Console.log("Transmitter already running; ignoring new transmit policy.");
+            return;
+        }
+        transmitPolicy = policy;
+        transmitQueueSize = queueSize;
+    }
+
     public void setSpeed(double speed) {
         clock.setSpeed(speed);
     }
 
+    // Synchronized with turnOffLights(), which runs from the sun and
+    // turn-off timers and also renders frames. Frame readers never lock.
     @Override
-    public void run() {
+    public synchronized void run() {
         if (!isRunning) {
             return;
         }
-        if (controller != null) {
+        long start = System.nanoTime();
+        stats.frameStarted(start);
+
+        // One timestamp per frame; the controller and its animations all
+        // render against it.
+        double time = clock.tick();
+        if (renderer != null) {
             try {
-                controller.step(clock.getCurrentTime());
+                renderer.step(time);
             } catch (Exception ex) {
                 Console.log("Caught exception from controller step: " + ex);
             }
         }
-        writeFrame();
+        stats.step.record(System.nanoTime() - start);
+        writeFrame(time);
+
+        long end = System.nanoTime();
+        stats.frameFinished(start, end);
+        if (stats.windowElapsed(end)) {
+            stats.logAndReset(getControllerName(), end);
+        }
     }
 
-    private void writeFrame() {
+    private void writeFrame(double time) {
+        long start = System.nanoTime();
+        frameCount++;
+        publishFrame(time);
         if (spiWriter != null) {
-            spiWriter.writeLights(lights);
+            if (transmitter == null) {
+                FrameQueue queue = new FrameQueue(lights.getLightCount(),
+                                                  transmitQueueSize, transmitPolicy);
+                transmitter = new FrameTransmitter(spiWriter, queue, stats);
+                stats.setTransmitter(transmitter);
+                transmitter.start();
+                frameSinks.add(transmitter);
+            }
         }
+        int rgb[] = lights.getColorData();
+        for (FrameSink sink : frameSinks) {
+            sink.submit(rgb, time, frameCount);
+        }
+        long published = System.nanoTime();
+        stats.publish.record(published - start);
         notifyNewFrame();
+        stats.notify.record(System.nanoTime() - published);
+    }
+
+    private void publishFrame(double time) {
+        int[] rgb = lights.getColorData();
+        for (FrameBuffer frames : frameReaders) {
+            frames.publish(rgb, time);
+        }
     }
 
     private void notifyStateChange() {
@@ -212,13 +398,18 @@ public class LeanExec implements Runnable {
         }
     }
 
-    private void turnOffLights() {
-        lights.fill(Color.BLACK);
-        writeFrame();
-        lights.fill(Color.BLACK);
-        writeFrame();
-        lights.fill(Color.BLACK);
-        writeFrame();
+    // Each black frame is forced out past the SPI writer's unchanged
+    // frame skipping: once the show has stopped, nothing else would
+    // resend them if one were lost.
+    private synchronized void turnOffLights() {
+        double time = clock.getCurrentTime();
+        for (int i = 0; i < 3; i++) {
+            lights.fill(Color.BLACK);
+            if (spiWriter != null) {
+                spiWriter.resetDeltas();
+            }
+            writeFrame(time);
+        }
     }
 
     private void turnOffLightsWithDelay(int delay) {
@@ -0,0 +1,239 @@
+package lightsim;
+
+import java.util.Arrays;
+
+/**
+ * A bit-packed Game of Life board, in two or three dimensions, with
+ * either dead or toroidal (wrap-around) edges and any birth/survival
+ * rule.
+ *
+ * Each row of cells along x is packed 64 to a long. A generation adds up
+ * the neighbour rows, shifted one cell either way along x, in bit-sliced
+ * counters: five longs hold the 5-bit neighbour counts of 64 cells, and
+ * adding a row is a handful of ANDs and XORs. The rule is then applied
+ * to all 64 cells at once with masks. There is no per-cell work, so
+ * large boards and many generations per frame are cheap.
+ *
+ * A board with nz == 1 uses the 8 neighbours of 2D Life; otherwise the 26
+ * neighbours of a 3D Moore neighbourhood.
+ */
+public class LifeBoard {
+    /** Conway's Life. */
+    public static final String LIFE = "B3/S23";
+    /** Bays' 3D Life 4555: born with 5 neighbours, survives with 4 or 5. */
+    public static final String LIFE_3D = "B5/S45";
+
+    final int nx, ny, nz;
+    final int words;            // Longs per row.
+    final boolean wrap;
+    final long lastMask;        // Valid bits of each row's last long.
+    final int birth, survive;   // Bit n set if n neighbours births/survives.
+    final int counts[];         // Every neighbour count either set mentions.
+
+    long cells[];               // Row (z, y) starts at (z * ny + y) * words.
+    long next[];
+    long generation;
+
+    // Neighbour rows of the row being computed, their count, and which
+    // of them is the row itself.
+    private final int rowStarts[];
+    private int rowCount, selfIndex;
+
+    public LifeBoard(int nx, int ny, int nz, boolean wrap, String rule) {
+        if (nx <= 0 || ny <= 0 || nz <= 0) {
+            throw new IllegalArgumentException("Bad Life board size " + nx + "x" + ny + "x" + nz);
+        }
+        this.nx = nx;
+        this.ny = ny;
+        this.nz = nz;
+        this.wrap = wrap;
+        words = (nx + 63) / 64;
+        lastMask = nx % 64 == 0 ? -1L : (1L << (nx % 64)) - 1;
+        cells = new long[words * ny * nz];
+        next = new long[words * ny * nz];
+        rowStarts = new int[nz == 1 ? 3 : 9];
+
+        int b = 0, s = 0;
+        String parts[] = rule.toUpperCase().split("/");
+        for (String part : parts) {
+            for (int i = 1; i < part.length(); i++) {
+                int n = Character.digit(part.charAt(i), 10);
+                if (n < 0) {
+                    throw new IllegalArgumentException("Bad Life rule " + rule);
+                }
+                if (part.charAt(0) == 'B') {
+                    b |= 1 << n;
+                } else if (part.charAt(0) == 'S') {
+                    s |= 1 << n;
+                } else {
+                    throw new IllegalArgumentException("Bad Life rule " + rule);
+                }
+            }
+        }
+        birth = b;
+        survive = s;
+        counts = new int[Integer.bitCount(b | s)];
+        for (int n = 0, i = 0; n < 32; n++) {
+            if (((b | s) & (1 << n)) != 0) {
+                counts[i++] = n;
+            }
+        }
+    }
+
+    public int getWidth()  { return nx; }
+    public int getHeight() { return ny; }
+    public int getDepth()  { return nz; }
+    public long getGeneration() { return generation; }
+
+    public boolean get(int x, int y, int z) {
+        return (cells[row(y, z) + (x >> 6)] & (1L << x)) != 0;
+    }
+
+    public void set(int x, int y, int z, boolean alive) {
+        int i = row(y, z) + (x >> 6);
+        if (alive) {
+            cells[i] |= 1L << x;
+        } else {
+            cells[i] &= ~(1L << x);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(cells, 0);
+        generation = 0;
+    }
+
+    public int getPopulation() {
+        int population = 0;
+        for (long word : cells) {
+            population += Long.bitCount(word);
+        }
+        return population;
+    }
+
+    /** Runs n generations; returns false if the last one changed nothing. */
+    public boolean step(int n) {
+        boolean changed = true;
+        for (int i = 0; i < n; i++) {
+            changed = step();
+        }
+        return changed;
+    }
+
+    /** Runs one generation; returns false if it changed nothing. */
+    public boolean step() {
+        long changed = 0;
+        for (int z = 0; z < nz; z++) {
+            for (int y = 0; y < ny; y++) {
+                gatherRows(y, z);
+                int self = row(y, z);
+                for (int w = 0; w < words; w++) {
+                    long s0 = 0, s1 = 0, s2 = 0, s3 = 0, s4 = 0;
+                    for (int r = 0; r < rowCount; r++) {
+                        int start = rowStarts[r];
+                        long c = cells[start + w];
+                        long west = west(start, w, c);
+                        long east = east(start, w, c);
+                        for (int k = r == selfIndex ? 1 : 0; k < 3; k++) {
+                            long v = k == 0 ? c : k == 1 ? west : east;
+                            // Ripple-carry add of one bit to each 5-bit counter.
+                            long carry = s0 & v;
+                            s0 ^= v;
+                            long carry2 = s1 & carry;
+                            s1 ^= carry;
+                            carry = s2 & carry2;
+                            s2 ^= carry2;
+                            carry2 = s3 & carry;
+                            s3 ^= carry;
+                            s4 ^= carry2;
+                        }
+                    }
+                    long alive = cells[self + w];
+                    long born = 0, stays = 0;
+                    for (int n : counts) {
+                        long eq = ((n & 1) != 0 ? s0 : ~s0)
+                                & ((n & 2) != 0 ? s1 : ~s1)
+                                & ((n & 4) != 0 ? s2 : ~s2)
+                                & ((n & 8) != 0 ? s3 : ~s3)
+                                & ((n & 16) != 0 ? s4 : ~s4);
+                        if ((birth & (1 << n)) != 0) {
+                            born |= eq;
+                        }
+                        if ((survive & (1 << n)) != 0) {
+                            stays |= eq;
+                        }
+                    }
+                    long result = (born & ~alive) | (stays & alive);
+                    if (w == words - 1) {
+                        result &= lastMask;
+                    }
+                    next[self + w] = result;
+                    changed |= result ^ alive;
+                }
+            }
+        }
+        long swap[] = cells;
+        cells = next;
+        next = swap;
+        generation++;
+        return changed != 0;
+    }
+
+    private int row(int y, int z) {
+        return (z * ny + y) * words;
+    }
+
+    // Collects the rows around (y, z), itself included, into rowStarts.
+    // Off the edge of a bounded board there are no rows to collect.
+    private void gatherRows(int y, int z) {
+        rowCount = 0;
+        int dz0 = nz == 1 ? 0 : -1, dz1 = nz == 1 ? 0 : 1;
+        for (int dz = dz0; dz <= dz1; dz++) {
+            int zz = z + dz;
+            if (zz < 0 || zz >= nz) {
+                if (!wrap) {
+                    continue;
+                }
+                zz = zz < 0 ? nz - 1 : 0;
+            }
+            for (int dy = -1; dy <= 1; dy++) {
+                int yy = y + dy;
+                if (yy < 0 || yy >= ny) {
+                    if (!wrap) {
+                        continue;
+                    }
+                    yy = yy < 0 ? ny - 1 : 0;
+                }
+                if (dy == 0 && dz == 0) {
+                    selfIndex = rowCount;
+                }
+                rowStarts[rowCount++] = row(yy, zz);
+            }
+        }
+    }
+
+    // Word w of the row with each cell replaced by its neighbour at x - 1.
+    private long west(int start, int w, long c) {
+        long in;
+        if (w > 0) {
+            in = cells[start + w - 1] >>> 63;
+        } else if (wrap) {
+            in = (cells[start + words - 1] >>> ((nx - 1) & 63)) & 1;
+        } else {
+            in = 0;
+        }
+        return (c << 1) | in;
+    }
+
+    // Word w of the row with each cell replaced by its neighbour at x + 1.
+    private long east(int start, int w, long c) {
+        long shifted = c >>> 1;
+        if (w < words - 1) {
+            return shifted | (cells[start + w + 1] << 63);
+        }
+        if (wrap) {
+            shifted |= (cells[start] & 1) << ((nx - 1) & 63);
+        }
+        return shifted;
+    }
+}
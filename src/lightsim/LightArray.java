@@ -14,6 +14,7 @@ package lightsim;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 //======================================================================
 // class LightArray
@@ -28,45 +29,65 @@ public class LightArray
         Z_AXIS
         }
 
+  //-------------------------------------------------------------------
+  // inner class Light
+  //
+  // A Light is a thin view over one slot of a packed color store.  The
+  // lights of the array share a single int[] of 0xRRGGBB values, so
+  // setting a color does not allocate, and the whole frame can be read
+  // or copied as one primitive array.
+  //
     public class Light implements Comparable
         {
         public int    ix, iy, iz;
         public double x, y, z, xt, yt, zt;
-        public Color color;
+        public final int index;
+        private final int[] store;
 
-        public Light()
+        private Light (int[] _store, int _index)
             {
-            color = color.BLACK;
+            store = _store;
+            index = _index;
             }
-        public Light (double _x, double _y, double _z, Color _color)
+        private Light (double _x, double _y, double _z, int _index, int _rgb)
             {
-            if (x > 16) {
-                Console.log("wtf");
-            }
+            this (colors, _index);
             x = _x;
             y = _y;
             z = _z;
-            color = _color;
+            store[index] = _rgb;
             }
         public void setState (Light light)
             {
-            this.color = light.color;
+            store[index] = light.store[light.index];
             }
         public void setState (Color _color, boolean _on)
             {
-            color = _color;
+            setColor (_color);
             }
 
         public boolean isOn() {
             return true;
         }
 
+        public boolean isBlack() {
+            return store[index] == 0;
+        }
+
+        public int getRGB() {
+            return store[index];
+        }
+
+        public void setRGB (int rgb) {
+            store[index] = rgb & 0xFFFFFF;
+        }
+
         public void setColor (Color value)  {
-            color = value;
+            store[index] = value.getRGB() & 0xFFFFFF;
         }
 
         public Color getColor () {
-            return color;
+            return new Color (store[index]);
         }
         public void setIndices (int _ix, int _iy, int _iz)
             {
@@ -85,30 +106,42 @@ public class LightArray
                 return 1;
             }
         }
+  //
+  //-------------------------------------------------------------------
 
     private ArrayList<Light> my_lights;
-    private ArrayList<Light> temp_lights;
-    private ArrayList  temp_objects;
 
-    private int temp_idx;
+    private int[] colors;           // Packed 0xRRGGBB, one per light.
+    private final PlaneArena temp_planes = new PlaneArena();
+
     private Light[][][] all_lights, left_lights, right_lights;
+    private Light[][][][] fixture_lights;
 
+    private Geometry geometry;
     private Light[][] strings;
-    private static final Color whites[] =
+    private int[][] wire_order;     // Light indices in wire order, per channel.
+    private int[] dimensions;       // Largest ix, iy and iz of any light.
+    private int[] all_dimensions;
+    private Adjacency[][] adjacency;    // [grid][kind]; grid 0 is all_lights.
+
+    private static final int whites[] =
         {
-            new Color(155,155,155), new Color (180,180,180),
-            new Color (205,205,205), new Color(230,230,230),
-            Color.WHITE
+            0x9B9B9B, 0xB4B4B4, 0xCDCDCD, 0xE6E6E6, 0xFFFFFF
         };
-    public static final int DIMENSIONS[] = { 16, 9, 4 };
-    private static final int ALL_DIMENSIONS[] = { 10, 10, 5 };
-    private static final int LEFT_DIMENSIONS[] = { 5, 10, 5 };
-    private static final int RIGHT_DIMENSIONS[] = { 5, 10, 5 };
 
 
   // ----- constructor ------------------------------------------------
+  //
+  // Builds the installation described in geometry.properties.
   //
     public LightArray()
+        {
+        this (Geometry.getDefault());
+        }
+
+  // ----- constructor ------------------------------------------------
+  //
+    public LightArray (Geometry _geometry)
         {
         // Axes:
         //          ^ y
@@ -119,43 +152,89 @@ public class LightArray
         //        /
         //       V z
         //
-        // Define two light arrays separated by 8 units of space.
-        // Each array is 5x5 at the bottom and 10 lights high.
+        // The installation is made of fixtures, boxes of lights that
+        // the geometry places in space, in the combined grid, and on
+        // the wire.  Lights are numbered fixture by fixture; a light's
+        // index is its position in my_lights and in the color store.
         //
+        geometry = _geometry;
         my_lights = new ArrayList<>();
-        temp_lights = new ArrayList<>();
-        temp_objects = new ArrayList();
-
-        all_lights = new Light[ALL_DIMENSIONS[0]]
-                              [ALL_DIMENSIONS[1]]
-                              [ALL_DIMENSIONS[2]];
-        left_lights = new Light[LEFT_DIMENSIONS[0]]
-                               [LEFT_DIMENSIONS[1]]
-                               [LEFT_DIMENSIONS[2]];
-        right_lights = new Light[RIGHT_DIMENSIONS[0]]
-                                [RIGHT_DIMENSIONS[1]]
-                                [RIGHT_DIMENSIONS[2]];
-        strings = new Light[50][10];
-
-        for (int ix=0; ix<5; ix++) {
-            for (int iy=0; iy<10; iy++) {
-                for (int iz=0; iz<5; iz++) {
-                    Light l = new Light (ix,iy,iz, whites[iz]);
-                    l.setIndices (ix,iy,iz);
-                    my_lights.add (l);
-                    all_lights[ix][iy][iz] = l;
-                    left_lights[ix][iy][iz] = l;
-                    strings[4 - ix + 20 - 5 * iz][9 - iy] = l;
-
-                    l = new Light (ix+12,iy,iz, whites[iz]);
-                    l.setIndices (ix+12,iy,iz);
-                    my_lights.add (l);
-                    all_lights[ix+5][iy][iz] = l;
-                    right_lights[ix][iy][iz] = l;
-                    strings[25 + 4 - ix + 20 - 5 * iz][9 - iy] = l;
+
+        int n_lights = 0, n_strings = 0;
+        all_dimensions = new int[3];
+        for (Geometry.Fixture f : geometry.getFixtures())
+          { n_lights += f.getLightCount();
+            n_strings += f.getStringCount();
+            for (int axis=0; axis<3; axis++)
+                all_dimensions[axis] = Math.max (all_dimensions[axis],
+                                                 f.grid[axis] + f.size[axis]);
+            }
+        colors = new int[n_lights];
+        all_lights = new Light[all_dimensions[0]]
+                              [all_dimensions[1]]
+                              [all_dimensions[2]];
+        fixture_lights = new Light[geometry.getFixtures().size()][][][];
+        adjacency = new Adjacency[fixture_lights.length + 1][3];
+        strings = new Light[n_strings][];
+        dimensions = new int[3];
+
+        int i_fixture = 0, i_string = 0;
+        for (Geometry.Fixture f : geometry.getFixtures())
+          { int nx = f.size[0], ny = f.size[1], nz = f.size[2];
+            Light[][][] lights = new Light[nx][ny][nz];
+            for (int ix=0; ix<nx; ix++)
+                for (int iy=0; iy<ny; iy++)
+                    for (int iz=0; iz<nz; iz++)
+                      { int gx = f.origin[0] + ix;
+                        int gy = f.origin[1] + iy;
+                        int gz = f.origin[2] + iz;
+                        Light l = new Light (gx,gy,gz, my_lights.size(),
+                                    whites[Math.min (iz, whites.length-1)]);
+                        l.setIndices (gx,gy,gz);
+                        my_lights.add (l);
+                        lights[ix][iy][iz] = l;
+                        all_lights[f.grid[0]+ix][f.grid[1]+iy][f.grid[2]+iz] = l;
+                        dimensions[0] = Math.max (dimensions[0], gx);
+                        dimensions[1] = Math.max (dimensions[1], gy);
+                        dimensions[2] = Math.max (dimensions[2], gz);
+                        }
+
+          // Chain the lights into strings in wiring order.
+          //
+            int length = f.getStringLength();
+            for (int is=0; is<f.getStringCount(); is++)
+              { Light string[] = new Light[length];
+                for (int ip=0; ip<length; ip++)
+                  { int idx[] = f.wiredLight (is, ip);
+                    string[ip] = lights[idx[0]][idx[1]][idx[2]];
+                    }
+                strings[i_string++] = string;
                 }
+            fixture_lights[i_fixture++] = lights;
+            }
+        left_lights = fixture_lights[0];
+        right_lights = fixture_lights[Math.min (1, fixture_lights.length-1)];
+
+      // Each channel sends the strings of its fixtures, fixture by
+      // fixture, in the order the geometry lists them.
+      //
+        wire_order = new int[geometry.getChannelCount()][];
+        for (int channel=0; channel<wire_order.length; channel++)
+          { int n = 0;
+            for (Geometry.Fixture f : geometry.getFixtures())
+                if (f.channel == channel)
+                    n += f.getLightCount();
+            int order[] = new int[n];
+            int iw = 0;
+            i_string = 0;
+            for (Geometry.Fixture f : geometry.getFixtures())
+              { for (int is=0; is<f.getStringCount(); is++, i_string++)
+                    if (f.channel == channel)
+                        for (Light l : strings[i_string])
+                            order[iw++] = l.index;
+                }
+            wire_order[channel] = order;
             }
-        }
 
         Bounds x_bnds, y_bnds, z_bnds;
 
@@ -185,26 +264,93 @@ public class LightArray
 
   // ----- access methods ---------------------------------------
   //
-    public int[] getDimensions()        { return DIMENSIONS; }
-    public int[] getAllDimensions()     { return ALL_DIMENSIONS; }
-    public int[] getLeftDimensions()    { return LEFT_DIMENSIONS; }
-    public int[] getRightDimensions()   { return RIGHT_DIMENSIONS; }
+  // The left and right lights are the first two fixtures, which is what
+  // the controllers written for the two-cube installation expect.
+  //
+    public int[] getDimensions()        { return dimensions; }
+    public int[] getAllDimensions()     { return all_dimensions; }
+    public int[] getLeftDimensions()    { return geometry.getFixtures().get(0).size; }
+    public int[] getRightDimensions()
+        {
+        return geometry.getFixtures().get(
+                    Math.min (1, fixture_lights.length-1)).size;
+        }
 
+    public Geometry getGeometry()       { return geometry; }
     public ArrayList<Light> getLights() { return my_lights; }
 
     public Light[][][] getAllLights()   { return all_lights; }
     public Light[][][] getLeftLights()  { return left_lights; }
     public Light[][][] getRightLights() { return right_lights; }
+    public int getFixtureCount()        { return fixture_lights.length; }
+    public Light[][][] getFixtureLights (int fixture)
+        {
+        return fixture_lights[fixture];
+        }
     public Light[][] getStrings() { return strings; }
 
+  // ----- getAdjacency() ---------------------------------------------
+  //
+  // The neighbours of each light in the combined grid, or in one of the
+  // fixtures, of the given Adjacency kind.  Tables for those grids are
+  // built on first use and kept; any other grid gets a new table.
+  //
+    public Adjacency getAdjacency (int kind)
+        {
+        return getAdjacency (all_lights, kind);
+        }
+
+    public Adjacency getAdjacency (Light[][][] lights, int kind)
+        {
+        int grid = -1;
+        if (lights == all_lights)
+            grid = 0;
+          else
+            for (int i=0; i<fixture_lights.length; i++)
+                if (lights == fixture_lights[i])
+                    grid = i + 1;
+        if (grid < 0)
+            return new Adjacency (lights, my_lights, kind);
+        if (adjacency[grid][kind] == null)
+            adjacency[grid][kind] = new Adjacency (lights, my_lights, kind);
+        return adjacency[grid][kind];
+        }
+
+  // ----- wiring -------------------------------------------------------
+  //
+  // getWireOrder(channel) lists the light indices in the order their
+  // colors go out on that channel, so an encoder only has to walk one
+  // int[] per channel.
+  //
+    public int   getChannelCount()          { return wire_order.length; }
+    public int[] getWireOrder (int channel) { return wire_order[channel]; }
+
+  // ----- packed color access ------------------------------------------
+  //
+  // Index-based access to the packed 0xRRGGBB store.  The index of a
+  // light is Light.index, which is also its position in getLights().
+  // getColorData() exposes the store itself for code that needs to
+  // read or copy a whole frame.
+  //
+    public int   getLightCount()            { return colors.length; }
+    public int[] getColorData()             { return colors; }
+    public int   getRGB (int index)         { return colors[index]; }
+    public void  setRGB (int index, int rgb) { colors[index] = rgb & 0xFFFFFF; }
+    public Color getColor (int index)       { return new Color (colors[index]); }
+    public void  setColor (int index, Color color)
+        {
+        colors[index] = color.getRGB() & 0xFFFFFF;
+        }
+
   // ----- fill() ----------------------------------------------------
   //
     public void fill (Color color)
         {
-        for (Light l : my_lights)
-            {
-            l.color = color;
-            }
+        fill (color.getRGB());
+        }
+    public void fill (int rgb)
+        {
+        Arrays.fill (colors, rgb & 0xFFFFFF);
         }
 
   // ----- fillXPlane() -----------------------------------------------
@@ -252,61 +398,31 @@ public class LightArray
                 }
         }
 
-  // ----- get_temp_light() -------------------------------------------
-  //
-    private Light get_temp_light()
-        {
-        if (temp_idx > temp_lights.size())
-            throw new IndexOutOfBoundsException(
-                            "in LightArray.get_temp_light()");
-        if (temp_idx == temp_lights.size())
-            temp_lights.add (new Light());
-        return temp_lights.get (temp_idx++);
-        }
-
   // ----- getTempPlane() ----------------------------------------------
   //
-    public Light[][] getTempPlane (int nx, int ny)
+  // Temp planes come from an arena that is reused from call to call, so
+  // saving and restoring planes does not allocate once it has warmed up.
+  // A plane stays valid until the next releaseTemps().
+  //
+    public PlaneArena.Plane getTempPlane (int nx, int ny)
         {
         if (nx <= 0 || ny <= 0)
             return null;
-
-        Light[][] lights = new Light[nx][ny];
-        for (int ix=0; ix<nx; ix++)
-            for (int iy=0; iy<ny; iy++)
-                lights[ix][iy] = get_temp_light();
-        temp_objects.add (lights);
-        return lights;
+        return temp_planes.acquire (nx, ny);
         }
 
   // ----- releaseTemps() ---------------------------------------------
   //
     public void releaseTemps()
         {
-        for (Object obj : temp_objects)
-          { if (obj instanceof Light[][])
-              { Light[][] lights = (Light[][]) obj;
-                int nx = lights.length;
-                int ny = lights[0].length;
-                for (int ix=0; ix<nx; ix++)
-                    for (int iy=0; iy<ny; iy++)
-                        lights[ix][iy] = null;
-                }
-
-            }
-        while (!temp_objects.isEmpty())
-            temp_objects.remove(0);
-        temp_idx = 0;
+        temp_planes.releaseAll();
         }
 
   // ----- reset() ----------------------------------------------
   //
     public void reset()
         {
-        for (Light l : my_lights)
-            {
-            l.color = Color.BLACK;
-            }
+        Arrays.fill (colors, 0);
         }
 
   // ----- save_plane_check() ----------------------------------------
@@ -339,54 +455,51 @@ public class LightArray
 
   // ----- saveXPlane() ----------------------------------------------
   //
-    public Light[][] saveXPlane (int x_idx, Light[][][] lights)
+    public PlaneArena.Plane saveXPlane (int x_idx, Light[][][] lights)
         {
         if (!save_plane_check (x_idx, Axis.X_AXIS, lights))
             return null;
 
         int ny = lights[0].length;
         int nz = lights[0][0].length;
-        Light[][] saved_plane = getTempPlane (ny, nz);
+        PlaneArena.Plane saved_plane = getTempPlane (ny, nz);
         for (int iy=0; iy<ny; iy++)
             for (int iz=0; iz<nz; iz++)
-              { saved_plane[iy][iz].setState (lights[x_idx][iy][iz]);
-                }
+                saved_plane.set (iy, iz, lights[x_idx][iy][iz].getRGB());
 
         return saved_plane;
         }
 
   // ----- saveYPlane() ----------------------------------------------
   //
-    public Light[][] saveYPlane (int y_idx, Light[][][] lights)
+    public PlaneArena.Plane saveYPlane (int y_idx, Light[][][] lights)
         {
         if (!save_plane_check (y_idx, Axis.Y_AXIS, lights))
             return null;
 
         int nx = lights.length;
         int nz = lights[0][0].length;
-        Light[][] saved_plane = getTempPlane (nx, nz);
+        PlaneArena.Plane saved_plane = getTempPlane (nx, nz);
         for (int ix=0; ix<nx; ix++)
             for (int iz=0; iz<nz; iz++)
-              { saved_plane[ix][iz].setState (lights[ix][y_idx][iz]);
-                }
+                saved_plane.set (ix, iz, lights[ix][y_idx][iz].getRGB());
 
         return saved_plane;
         }
 
   // ----- saveZPlane() ----------------------------------------------
   //
-    public Light[][] saveZPlane (int z_idx, Light[][][] lights)
+    public PlaneArena.Plane saveZPlane (int z_idx, Light[][][] lights)
         {
         if (!save_plane_check (z_idx, Axis.Z_AXIS, lights))
             return null;
 
         int nx = lights.length;
         int ny = lights[0].length;
-        Light[][] saved_plane = getTempPlane (nx, ny);
+        PlaneArena.Plane saved_plane = getTempPlane (nx, ny);
         for (int ix=0; ix<nx; ix++)
             for (int iy=0; iy<ny; iy++)
-              { saved_plane[ix][iy].setState (lights[ix][iy][z_idx]);
-                }
+                saved_plane.set (ix, iy, lights[ix][iy][z_idx].getRGB());
 
         return saved_plane;
         }
@@ -394,7 +507,7 @@ public class LightArray
   // ----- set_plane_check() -----------------------------------------
   //
     private boolean set_plane_check (int plane_idx, Axis axis,
-                                        Light[][] plane,
+                                        PlaneArena.Plane plane,
                                         Light[][][] lights)
         {
         int npx,npy, nx,ny,nz;
@@ -402,8 +515,8 @@ public class LightArray
         if ((ny=lights[0].length) == 0)  return false;
         if ((nz=lights[0][0].length) == 0)  return false;
 
-        if ((npx=plane.length) == 0)    return false;
-        if ((npy=plane[0].length) == 0)    return false;
+        if ((npx=plane.getWidth()) == 0)    return false;
+        if ((npy=plane.getHeight()) == 0)    return false;
 
         if (plane_idx < 0)  return false;
 
@@ -431,53 +544,47 @@ public class LightArray
 
   // ----- setXPlane() ----------------------------------------------
   //
-    public void setXPlane (Light[][] src_plane,
+    public void setXPlane (PlaneArena.Plane src_plane,
                             int x_idx, Light[][][] dest_lights)
         {
         if (!set_plane_check (x_idx, Axis.X_AXIS, src_plane, dest_lights))
             return;
 
-        int ny = src_plane.length;
-        int nz = src_plane[0].length;
+        int ny = src_plane.getWidth();
+        int nz = src_plane.getHeight();
         for (int iy=0; iy<ny; iy++)
             for (int iz=0; iz<nz; iz++)
-              { dest_lights[x_idx][iy][iz].color
-                        = src_plane[iy][iz].color;
-                }
+                dest_lights[x_idx][iy][iz].setRGB (src_plane.get (iy, iz));
         }
 
   // ----- setYPlane() ----------------------------------------------
   //
-    public void setYPlane (Light[][] src_plane,
+    public void setYPlane (PlaneArena.Plane src_plane,
                             int y_idx, Light[][][] dest_lights)
         {
         if (!set_plane_check (y_idx, Axis.Y_AXIS, src_plane, dest_lights))
             return;
 
-        int nx = src_plane.length;
-        int nz = src_plane[0].length;
+        int nx = src_plane.getWidth();
+        int nz = src_plane.getHeight();
         for (int ix=0; ix<nx; ix++)
             for (int iz=0; iz<nz; iz++)
-              { dest_lights[ix][y_idx][iz].color
-                        = src_plane[ix][iz].color;
-                }
+                dest_lights[ix][y_idx][iz].setRGB (src_plane.get (ix, iz));
         }
 
   // ----- setZPlane() ----------------------------------------------
   //
-    public void setZPlane (Light[][] src_plane,
+    public void setZPlane (PlaneArena.Plane src_plane,
                             int z_idx, Light[][][] dest_lights)
         {
         if (!set_plane_check (z_idx, Axis.Z_AXIS, src_plane, dest_lights))
             return;
 
-        int nx = src_plane.length;
-        int ny = src_plane[0].length;
+        int nx = src_plane.getWidth();
+        int ny = src_plane.getHeight();
         for (int ix=0; ix<nx; ix++)
             for (int iy=0; iy<ny; iy++)
-              { dest_lights[ix][iy][z_idx].color
-                        = src_plane[ix][iy].color;
-                }
+                dest_lights[ix][iy][z_idx].setRGB (src_plane.get (ix, iy));
         }
 
   // ----- shift_check() ----------------------------------------------
@@ -502,6 +609,10 @@ public class LightArray
   // ----- shiftAlongXAxis() ------------------------------------------
   //
   // Shift the light states along the x-axis with wrap around.
+  //
+  // These shifts copy every light.  A controller that scrolls every
+  // frame should keep its content in a LightVolume, which shifts by
+  // moving an origin and writes the lights once per frame.
   //
     public void shiftAlongXAxis (int shift, Light lights[][][])
         {
@@ -515,9 +626,12 @@ public class LightArray
         int x_src, x_dest;
         int nxm1 = nx - 1;
 
-      // Save the light states in the wrap around layer.
+      // Save the light states in the wrap around layer, in a temp
+      // plane that is released again below (but not any the caller
+      // holds).
       //
-        Light[][] saved_plane;
+        int mark = temp_planes.mark();
+        PlaneArena.Plane saved_plane;
         if (shift == -1)
           { x_src = 1;
             x_dest = 0;
@@ -548,7 +662,7 @@ public class LightArray
           { setXPlane (saved_plane, 0, lights);
             }
 
-        releaseTemps();
+        temp_planes.release (mark);
         }
 
   // ----- shiftAlongYAxis() ------------------------------------------
@@ -567,9 +681,12 @@ public class LightArray
         int y_src, y_dest;
         int nym1 = ny - 1;
 
-      // Save the light states in the wrap around layer.
+      // Save the light states in the wrap around layer, in a temp
+      // plane that is released again below (but not any the caller
+      // holds).
       //
-        Light[][] saved_plane;
+        int mark = temp_planes.mark();
+        PlaneArena.Plane saved_plane;
         if (shift == -1)
           { y_src = 1;
             y_dest = 0;
@@ -600,7 +717,7 @@ public class LightArray
           { setYPlane (saved_plane, 0, lights);
             }
 
-        releaseTemps();
+        temp_planes.release (mark);
         }
 
   // ----- shiftAlongZAxis() ------------------------------------------
@@ -619,9 +736,12 @@ public class LightArray
         int z_src, z_dest;
         int nzm1 = nz - 1;
 
-      // Save the light states in the wrap around layer.
+      // Save the light states in the wrap around layer, in a temp
+      // plane that is released again below (but not any the caller
+      // holds).
       //
-        Light[][] saved_plane;
+        int mark = temp_planes.mark();
+        PlaneArena.Plane saved_plane;
         if (shift == -1)
           { z_src = 1;
             z_dest = 0;
@@ -652,7 +772,7 @@ public class LightArray
           { setZPlane (saved_plane, 0, lights);
             }
 
-        releaseTemps();
+        temp_planes.release (mark);
         }
 
   // ----- shiftOutAlongXAxis() ---------------------------------------
@@ -781,7 +901,7 @@ public class LightArray
       //
         for (int i=0; i<nzm1; i++)
           { for (int ix=0; ix<nx; ix++)
-                for (int iy=0; iy<nz; iy++)
+                for (int iy=0; iy<ny; iy++)
                     lights[ix][iy][z_dest].setState (lights[ix][iy][z_src]);
             z_src -= shift;
             z_dest -= shift;
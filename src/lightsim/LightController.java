@@ -86,7 +86,7 @@ public abstract class LightController
                   }
         }
 
-    protected static Random random = new Random();
+    protected static final Random random = LSUtils.random;
 
     protected LightArray    my_light_array;
     protected int           my_step;
@@ -118,6 +118,20 @@ public abstract class LightController
         return step((int)(time * 1000));
     }
 
+    // Controllers whose frames depend only on time, with no randomness or
+    // outside input, can be pre-rendered by ShowBaker. They return the
+    // length in seconds of the cycle their output repeats with, counted
+    // from the end of the first cycle. 0 means don't bake.
+    public double bakeCycleSeconds() {
+        return 0;
+    }
+
+    // Bump whenever the controller's output changes, so that bakes of the
+    // old output are ignored.
+    public int bakeVersion() {
+        return 1;
+    }
+
   // ----- toString() -------------------------------------------------
   //
     @Override
@@ -142,7 +156,7 @@ public abstract class LightController
             for (int iz=0; iz<nz; iz++)
                 {
                 Light l = layer[ix][iz];
-                l.color = Color.BLACK;
+                l.setColor (Color.BLACK);
                 }
         }
 
@@ -158,7 +172,7 @@ public abstract class LightController
                 {
                 Light from_l = from[ix][iy];
                 Light to_l = to[ix][iy];
-                to_l.color = from_l.color;
+                to_l.setState (from_l);
                 }
         }
 
@@ -176,11 +190,11 @@ public abstract class LightController
                 Light l = layer[4-ix][4-iz];
                 if ((mask & row_pattern) !=  0)
                     {
-                    l.color = color;
+                    l.setColor (color);
                     }
                   else
                     {
-                    l.color = Color.BLACK;
+                    l.setColor (Color.BLACK);
                     }
                 mask = mask << 1;
                 }
@@ -249,7 +263,7 @@ public abstract class LightController
   // returns 0 or 1, each with a probably of 0.5.
   //
     protected int pick_number (int lwrbnd, int uprbnd) {
-        double pick = (uprbnd - lwrbnd + 1) * Math.random();
+        double pick = (uprbnd - lwrbnd + 1) * random.nextDouble();
         int ipick = (int) pick;
         return lwrbnd + ipick;
     }
@@ -265,9 +279,9 @@ public abstract class LightController
             for (int iz=0; iz<5; iz++) {
                 Light l = layer[ix][iz];
                 if ((mask & row_pattern) !=  0) {
-                    l.color = color;
+                    l.setColor (color);
                 } else {
-                    l.color = Color.BLACK;
+                    l.setColor (Color.BLACK);
                 }
                 mask = mask >>> 1;
             }
@@ -275,9 +289,7 @@ public abstract class LightController
     }
 
     protected void clearLights() {
-        for (Light light : my_light_array.getLights()) {
-            light.color = bgColor;
-        }
+        my_light_array.fill(bgColor);
     }
 
     protected void addAnimation(Animation animation) {
@@ -289,16 +301,23 @@ public abstract class LightController
         animations.remove(animation);
     }
 
+    // Finished animations are swap-removed: the last animation moves into
+    // the finished one's place. That doesn't allocate and is O(1) per
+    // removal, but it means animations don't tick in the order they were
+    // added.
     protected void updateAnimations(double time) {
-        ArrayList<Animation> animationsToRemove = new ArrayList<>();
-        for (Animation animation : animations) {
-            boolean isFinished = !animation.tick(time);
-            if (isFinished) {
-                animation.onComplete();
-                animationsToRemove.add(animation);
+        int i = 0;
+        while (i < animations.size()) {
+            Animation animation = animations.get(i);
+            if (animation.tick(time)) {
+                i++;
+                continue;
             }
+            animation.onComplete();
+            int last = animations.size() - 1;
+            animations.set(i, animations.get(last));
+            animations.remove(last);
         }
-        animations.removeAll(animationsToRemove);
     }
 
     protected static double randomDoubleInRange(double min, double max) {
@@ -13,6 +13,7 @@
 package lightsim;
 
 import java.awt.event.*;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.List;
@@ -33,6 +34,16 @@ public class LightSim
     private LightArray      my_light_arrays;
     private boolean enable_gui;
     private boolean scheduled;
+    private SpiTransport spi_transport;
+    private boolean spi_loopback;
+    private String spi_loopback_path;
+    private String geometry_path;
+    private FrameQueue.FullPolicy tx_policy = FrameQueue.FullPolicy.DROP_OLDEST;
+    private int tx_queue_size = 2;
+    private double spi_keep_alive = SpiWriter.DEFAULT_KEEP_ALIVE_SECONDS;
+    private String record_path;
+    private String playback_path;
+    private String bake_dir = ShowBaker.DEFAULT_DIR;
 
     private ArrayList<LightController> controllers;
   // ----- main() ----------------------------------------------------
@@ -44,10 +55,103 @@ public class LightSim
         {
         List<String> argList = Arrays.asList(args);
         Console.log("args are %s", argList.toString());
+
+      // --simulate runs controllers headless on a virtual clock instead
+      // of starting the app.  See SimulationRunner for its options.
+      //
+        if (argList.contains("--simulate")) {
+            try {
+                SimulationRunner.main(args);
+            } catch (IOException e) {
+                Console.log("Simulation failed: %s", e);
+            }
+            return;
+        }
+
+      // --bake pre-renders the controllers that support it into the
+      // bake directory (--bake-dir=dir, "bakes" by default), which the
+      // app then plays them back from.  See ShowBaker.
+      //
+        if (argList.contains("--bake")) {
+            try {
+                ShowBaker.main(args);
+            } catch (IOException e) {
+                Console.log("Baking failed: %s", e);
+            }
+            return;
+        }
         boolean enable_gui = !argList.contains("--no-gui");
         boolean scheduled = argList.contains("--scheduled");
         prefs = Preferences.userRoot();
         light_sim = new LightSim(enable_gui, scheduled);
+
+      // --spi-loopback[=path] stands in for the Pi's SPI hardware,
+      // optionally capturing what would be sent to path.0, path.1, etc.
+      //
+        for (String arg : args)
+          { if (arg.equals ("--spi-loopback") || arg.startsWith ("--spi-loopback="))
+              { light_sim.spi_loopback = true;
+                light_sim.spi_loopback_path = arg.indexOf ('=') > 0
+                                ? arg.substring (arg.indexOf ('=') + 1)
+                                : null;
+                }
+
+          // --geometry=path describes the installation; see
+          // geometry.properties for the format.
+          //
+            else if (arg.startsWith ("--geometry="))
+                light_sim.geometry_path = arg.substring (11);
+
+          // --tx-policy=drop-oldest|drop-newest|block and --tx-queue=n
+          // control the queue between rendering and transmission.
+          //
+            else if (arg.startsWith ("--tx-policy="))
+              { try
+                  { light_sim.tx_policy = FrameQueue.FullPolicy.fromString (
+                                            arg.substring (12));
+                    }
+                catch (IllegalArgumentException e)
+                  { Console.log ("Usage: --tx-policy=drop-oldest|drop-newest|block");
+                    return;
+                    }
+                }
+            else if (arg.startsWith ("--tx-queue="))
+              { try
+                  { light_sim.tx_queue_size = Integer.parseInt (arg.substring (11)); }
+                catch (NumberFormatException e)
+                  { light_sim.tx_queue_size = 0; }
+                if (light_sim.tx_queue_size < 1)
+                  { Console.log ("Usage: --tx-queue=n, where n is at least 1");
+                    return;
+                    }
+                }
+
+          // --spi-keepalive=seconds resends unchanged frames this often;
+          // 0 sends every frame.
+          //
+            else if (arg.startsWith ("--spi-keepalive="))
+              { try
+                  { light_sim.spi_keep_alive = Double.parseDouble (arg.substring (16)); }
+                catch (NumberFormatException e)
+                  { light_sim.spi_keep_alive = Double.NaN; }
+                if (!(light_sim.spi_keep_alive >= 0)
+                      || Double.isInfinite (light_sim.spi_keep_alive))
+                  { Console.log ("Usage: --spi-keepalive=seconds, where seconds is 0 or more");
+                    return;
+                    }
+                }
+
+          // --record=path records every frame; --playback=path adds a
+          // controller that plays such a recording back (and runs it in
+          // --no-gui mode).
+          //
+            else if (arg.startsWith ("--record="))
+                light_sim.record_path = arg.substring (9);
+            else if (arg.startsWith ("--playback="))
+                light_sim.playback_path = arg.substring (11);
+            else if (arg.startsWith ("--bake-dir="))
+                light_sim.bake_dir = arg.substring (11);
+            }
         light_sim.init();
         }
 
@@ -59,17 +163,22 @@ public class LightSim
         this.scheduled = scheduled;
         }
 
-  // ----- init() -----------------------------------------------------
+  // ----- createControllers() ----------------------------------------
   //
-    public void init() {
-        my_light_arrays = new LightArray();
-
-        controllers = new ArrayList<>();
+  /**
+   *   Returns a new instance of every controller the app offers, in menu
+   *   order. The benchmarks use this too, so they cover whatever is
+   *   registered here.
+   */
+    public static ArrayList<LightController> createControllers ()
+        {
+        ArrayList<LightController> controllers = new ArrayList<>();
         controllers.add(new SimpleSnakesController());
         controllers.add(new SnakeController());
         controllers.add(new ColorCubeController());
         controllers.add(new DiamondController());
         controllers.add(new GameOfLifeController());
+        controllers.add(new GameOfLifeController(true));
         controllers.add(new HelloWorldController());
         controllers.add(new PulseController());
         controllers.add(new ShootingStarController());
@@ -79,13 +188,64 @@ public class LightSim
         controllers.add(new StarBurstController());
         controllers.add(new SparklesController());
         controllers.add(new WaveController());
+        return controllers;
+        }
+
+  // ----- init() -----------------------------------------------------
+  //
+    public void init() {
+        Geometry geometry = Geometry.getDefault();
+        if (geometry_path != null) {
+            try {
+                geometry = Geometry.load(geometry_path);
+            } catch (IOException | RuntimeException e) {
+                Console.log("Couldn't load geometry from %s: %s", geometry_path, e);
+                System.exit(1);
+            }
+        }
+        my_light_arrays = new LightArray(geometry);
+        Console.log("%d lights in %d fixtures on %d channels (geometry %s)",
+                    my_light_arrays.getLightCount(),
+                    my_light_arrays.getFixtureCount(),
+                    my_light_arrays.getChannelCount(),
+                    geometry.getSignature());
+        if (spi_loopback) {
+            try {
+                spi_transport = new LoopbackSpiTransport(
+                                    my_light_arrays.getChannelCount(),
+                                    spi_loopback_path);
+            } catch (IOException e) {
+                Console.log("Couldn't open SPI loopback capture: %s", e);
+            }
+        }
+        controllers = createControllers();
+        PlaybackController playback = null;
+        if (playback_path != null) {
+            try {
+                playback = new PlaybackController(playback_path);
+                controllers.add(playback);
+            } catch (IOException e) {
+                Console.log("Couldn't open recording for playback: %s", e);
+            }
+        }
 
-        exec = new LeanExec(my_light_arrays);
+        exec = new LeanExec(my_light_arrays, spi_transport);
+        exec.setTransmitPolicy(tx_policy, tx_queue_size);
+        exec.setShowBaker(new ShowBaker(bake_dir, geometry));
+        if (exec.getSpiWriter() != null) {
+            exec.getSpiWriter().setKeepAliveInterval(spi_keep_alive);
+        }
+        if (record_path != null) {
+            try {
+                exec.startRecording(record_path);
+            } catch (IOException e) {
+                Console.log("Couldn't start recording: %s", e);
+            }
+        }
         if (enable_gui) {
             my_window = new LightSimWindow(controllers, exec, my_light_arrays);
         } else {
-            exec = new LeanExec(my_light_arrays);
-            exec.setController(new WaveController());
+            exec.setController(playback != null ? playback : new WaveController());
         }
         Server server = new Server(exec, controllers);
         server.start();
@@ -77,7 +77,8 @@ public class LightSimWindow extends JFrame implements ExecListener {
 
         toolbar = new LightSimToolbar(controllers, lightSimExec);
         content.add (toolbar, BorderLayout.NORTH);
-        my_light_viewer = new LightViewer (light_arrays);
+        my_light_viewer = new LightViewer (light_arrays,
+                                           lightSimExec.addFrameReader());
         content.add (my_light_viewer, BorderLayout.CENTER);
 
         addWindowListener (new WindowAdapter() {
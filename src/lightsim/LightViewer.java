@@ -27,6 +27,7 @@ public class LightViewer extends JPanel
             implements KeyListener, MouseListener, MouseMotionListener {
 
     private LightArray my_light_arrays;
+    private FrameBuffer my_frames;
     private Light zlights[];
     private Bounds x_bnds, y_bnds, z_bnds;  // array bounds
     private double vx, vy, vz;              // coords of viewer
@@ -35,9 +36,10 @@ public class LightViewer extends JPanel
 
   // ----- constructor -------------------------------------------------
   //
-    public LightViewer (LightArray light_arrays)
+    public LightViewer (LightArray light_arrays, FrameBuffer frames)
         {
         my_light_arrays = light_arrays;
+        my_frames = frames;
 
         x_bnds = new Bounds();
         y_bnds = new Bounds();
@@ -144,14 +146,19 @@ public class LightViewer extends JPanel
         g.setColor (Color.DARK_GRAY);
         g.fillRect (0,0, getWidth(),getHeight());
         if (zlights != null) {
+          // Draw from the last published frame rather than the live
+          // light array so that we never paint a half-rendered frame.
+          //
+            Frame frame = my_frames.latest();
+            int[] rgb = frame != null ? frame.getColorData()
+                                      : my_light_arrays.getColorData();
             int xc = getWidth() / 2;
             int yc = getHeight() / 2;
             for (Light l : zlights) {
                 int x = (int) (xc + scale*l.xt + 0.5);
                 int y = (int) (yc - scale*l.yt + 0.5);  // invert y sense
 
-                Color color = l.color;
-                g.setColor (color);
+                g.setColor (new Color (rgb[l.index]));
                 g.fillOval (x-4, y-4, 9,9);
             }
         }
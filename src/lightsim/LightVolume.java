@@ -0,0 +1,132 @@
+package lightsim;
+
+import java.util.Arrays;
+import lightsim.LightArray.Light;
+
+/**
+ * A box of colors laid over a box of lights, that can be scrolled along
+ * any axis in constant time.
+ *
+ * The colors live in a ring buffer per axis: a shift only moves that
+ * axis's origin, and shiftOut() additionally clears the one plane that
+ * scrolls in. apply() then writes the whole box to the lights in a single
+ * pass, once per frame, however many shifts there were.
+ *
+ * Coordinates are those of the lights array the volume was made from.
+ * Positions with no light (null) still hold a color, so content scrolls
+ * through gaps intact.
+ */
+public class LightVolume {
+    final int nx, ny, nz;
+    final int store[];          // The LightArray's packed colors.
+    final int lightIndex[];     // Store index of each light, x-major; -1 for none.
+    final int cells[];          // Colors, x-major, rotated by the origin.
+
+    // Cell coordinates of position (0, 0, 0). Always in [0, n).
+    int ox, oy, oz;
+
+    public LightVolume(LightArray lightArray, Light lights[][][]) {
+        nx = lights.length;
+        ny = lights[0].length;
+        nz = lights[0][0].length;
+        store = lightArray.getColorData();
+        lightIndex = new int[nx * ny * nz];
+        cells = new int[nx * ny * nz];
+        int i = 0;
+        for (int x = 0; x < nx; x++) {
+            for (int y = 0; y < ny; y++) {
+                for (int z = 0; z < nz; z++, i++) {
+                    lightIndex[i] = lights[x][y][z] != null ? lights[x][y][z].index : -1;
+                }
+            }
+        }
+        load();
+    }
+
+    public int getWidth()  { return nx; }
+    public int getHeight() { return ny; }
+    public int getDepth()  { return nz; }
+
+    public int getRGB(int x, int y, int z) {
+        return cells[cell(x, y, z)];
+    }
+
+    public void setRGB(int x, int y, int z, int rgb) {
+        cells[cell(x, y, z)] = rgb & 0xFFFFFF;
+    }
+
+    public void fill(int rgb) {
+        Arrays.fill(cells, rgb & 0xFFFFFF);
+    }
+
+    /**
+     * Scrolls the colors one position along axis (0, 1 or 2 for x, y or
+     * z) in the direction of shift (1 or -1), wrapping around.
+     */
+    public void shift(int axis, int shift) {
+        switch (axis) {
+            case 0: ox = wrap(ox - shift, nx); break;
+            case 1: oy = wrap(oy - shift, ny); break;
+            case 2: oz = wrap(oz - shift, nz); break;
+            default: throw new IllegalArgumentException("axis " + axis);
+        }
+    }
+
+    /**
+     * Like shift(), but the plane that scrolls in is black instead of
+     * the one that scrolled out.
+     */
+    public void shiftOut(int axis, int shift) {
+        shift(axis, shift);
+        int n = axis == 0 ? nx : axis == 1 ? ny : nz;
+        int plane = shift > 0 ? 0 : n - 1;
+        for (int a = 0; a < (axis == 0 ? ny : nx); a++) {
+            for (int b = 0; b < (axis == 2 ? ny : nz); b++) {
+                switch (axis) {
+                    case 0: cells[cell(plane, a, b)] = 0; break;
+                    case 1: cells[cell(a, plane, b)] = 0; break;
+                    default: cells[cell(a, b, plane)] = 0; break;
+                }
+            }
+        }
+    }
+
+    /** Writes every color to its light. */
+    public void apply() {
+        int i = 0;
+        int zSplit = nz - oz;
+        for (int x = 0; x < nx; x++) {
+            int cx = wrap(x + ox, nx);
+            for (int y = 0; y < ny; y++) {
+                int row = (cx * ny + wrap(y + oy, ny)) * nz;
+                // The z ring, unrolled into its two straight runs.
+                for (int z = 0; z < zSplit; z++, i++) {
+                    if (lightIndex[i] >= 0) {
+                        store[lightIndex[i]] = cells[row + oz + z];
+                    }
+                }
+                for (int z = 0; z < oz; z++, i++) {
+                    if (lightIndex[i] >= 0) {
+                        store[lightIndex[i]] = cells[row + z];
+                    }
+                }
+            }
+        }
+    }
+
+    /** Replaces the colors with the lights' current colors. */
+    public void load() {
+        ox = oy = oz = 0;
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = lightIndex[i] >= 0 ? store[lightIndex[i]] : 0;
+        }
+    }
+
+    private int cell(int x, int y, int z) {
+        return (wrap(x + ox, nx) * ny + wrap(y + oy, ny)) * nz + wrap(z + oz, nz);
+    }
+
+    private static int wrap(int i, int n) {
+        return i >= n ? i - n : i < 0 ? i + n : i;
+    }
+}
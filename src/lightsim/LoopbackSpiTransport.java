@@ -0,0 +1,63 @@
+package lightsim;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * SpiTransport for development machines. Written data is "read back"
+ * unchanged, as if MOSI were looped to MISO. If a capture path is given,
+ * the bytes for each channel are also appended to path.0, path.1, etc.,
+ * exactly as they would appear on the wire.
+ */
+public class LoopbackSpiTransport implements SpiTransport {
+    private final OutputStream captures[];
+    private final long bytesWritten[];
+    private final byte lastWrite[][];
+
+    public LoopbackSpiTransport(int numChannels, String capturePath) throws IOException {
+        captures = new OutputStream[numChannels];
+        bytesWritten = new long[numChannels];
+        lastWrite = new byte[numChannels][0];
+        if (capturePath != null) {
+            for (int channel = 0; channel < numChannels; channel++) {
+                captures[channel] = new FileOutputStream(capturePath + "." + channel);
+            }
+        }
+    }
+
+    @Override
+    public void write(int channel, byte[] data, int length) throws IOException {
+        bytesWritten[channel] += length;
+        if (lastWrite[channel].length != length) {
+            lastWrite[channel] = new byte[length];
+        }
+        System.arraycopy(data, 0, lastWrite[channel], 0, length);
+        if (captures[channel] != null) {
+            captures[channel].write(data, 0, length);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "loopback";
+    }
+
+    public long getBytesWritten(int channel) {
+        return bytesWritten[channel];
+    }
+
+    /** Returns a copy of the most recent write on the given channel. */
+    public byte[] getLastWrite(int channel) {
+        return Arrays.copyOf(lastWrite[channel], lastWrite[channel].length);
+    }
+
+    public void close() throws IOException {
+        for (OutputStream capture : captures) {
+            if (capture != null) {
+                capture.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package lightsim;
+
+import java.util.Arrays;
+import lightsim.LightArray.Light;
+
+/**
+ * Which sprite, if any, is on each light, indexed by light index.
+ *
+ * Sprites claim a light when they move onto it and release it when they
+ * leave, so finding the sprite on a light, or asking whether a sprite is
+ * on one, is a single array read instead of a search of every sprite's
+ * body.
+ *
+ * If two sprites are on the same light, as when one snake's head bites
+ * into another's body, get() returns whichever claimed it last, and the
+ * one underneath is remembered. When the top sprite releases the light,
+ * it goes back to the one underneath, which still has it. Only one
+ * sprite is remembered underneath; a third sprite on the same light
+ * replaces it.
+ */
+public class Occupancy {
+    private final Sprite owner[];
+    private final Sprite under[];
+
+    public Occupancy(LightArray lights) {
+        owner = new Sprite[lights.getLightCount()];
+        under = new Sprite[lights.getLightCount()];
+    }
+
+    /** The sprite on the light, or null. */
+    public Sprite get(Light light) {
+        return owner[light.index];
+    }
+
+    /** True if sprite is on the light, on top or underneath. */
+    public boolean has(Light light, Sprite sprite) {
+        return owner[light.index] == sprite || under[light.index] == sprite;
+    }
+
+    public void claim(Light light, Sprite sprite) {
+        Sprite current = owner[light.index];
+        if (current != sprite) {
+            if (current != null) {
+                under[light.index] = current;
+            }
+            owner[light.index] = sprite;
+        }
+    }
+
+    /**
+     * Takes sprite off the light. If it was on top, the sprite
+     * underneath, if any, gets the light back.
+     */
+    public void release(Light light, Sprite sprite) {
+        if (owner[light.index] == sprite) {
+            owner[light.index] = under[light.index];
+            under[light.index] = null;
+        } else if (under[light.index] == sprite) {
+            under[light.index] = null;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(owner, null);
+        Arrays.fill(under, null);
+    }
+}
@@ -0,0 +1,65 @@
+package lightsim;
+
+import java.awt.Color;
+
+/**
+ * A named table of packed 0xRRGGBB colors, sampled by phase.
+ *
+ * A palette is compiled once, usually from a gradient, and never changes
+ * afterwards, so any thread can sample it. sample(phase) wraps phase
+ * around [0..1) and reads one entry, with no arithmetic on the colors
+ * themselves.
+ */
+public class Palette {
+    /** Entries in a gradient palette unless a size is given. */
+    public static final int DEFAULT_SIZE = 1024;
+
+    final String name;
+    final int lut[];
+
+    public Palette(String name, int lut[]) {
+        if (lut.length == 0) {
+            throw new IllegalArgumentException("Palette " + name + " has no colors");
+        }
+        this.name = name;
+        this.lut = lut.clone();
+    }
+
+    /**
+     * A palette that blends evenly from each stop to the next and from
+     * the last back to the first, so it cycles smoothly as phase wraps.
+     */
+    public static Palette gradient(String name, int size, int... stops) {
+        int lut[] = new int[size];
+        for (int i = 0; i < size; i++) {
+            double t = (double)stops.length * i / size;
+            int a = (int)t;
+            lut[i] = Colors.interpolate(stops[a], stops[(a + 1) % stops.length], t - a);
+        }
+        return new Palette(name, lut);
+    }
+
+    public static Palette gradient(String name, int size, Color... stops) {
+        int rgb[] = new int[stops.length];
+        for (int i = 0; i < stops.length; i++) {
+            rgb[i] = stops[i].getRGB() & 0xFFFFFF;
+        }
+        return gradient(name, size, rgb);
+    }
+
+    public String getName() { return name; }
+    public int size()       { return lut.length; }
+
+    /** Entry i, wrapped around the palette. */
+    public int get(int i) {
+        i %= lut.length;
+        return lut[i < 0 ? i + lut.length : i];
+    }
+
+    /** The color at phase, where [0..1) is once round the palette. */
+    public int sample(double phase) {
+        phase -= Math.floor(phase);
+        int i = (int)(phase * lut.length);
+        return lut[i < lut.length ? i : lut.length - 1];
+    }
+}
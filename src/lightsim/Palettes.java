@@ -0,0 +1,90 @@
+package lightsim;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * The palettes controllers can draw colors from, by name.
+ *
+ * The built-in palettes are compiled once, when this class loads. A
+ * controller samples its own palette through choose(), which hands back
+ * the operator's override instead when one is set. The override can be
+ * changed at any time, for instance from the /control/palette server
+ * request, and takes effect on the next frame.
+ */
+public class Palettes {
+    /** Red, magenta, blue, cyan, green, yellow; Wave's colors. */
+    public static final Palette SIX_COLOR =
+        Palette.gradient("six-color", Palette.DEFAULT_SIZE, Colors.SIX_COLOR_PROG);
+
+    /** LightController.RAINBOW, blended. */
+    public static final Palette RAINBOW =
+        Palette.gradient("rainbow", Palette.DEFAULT_SIZE, LightController.RAINBOW);
+
+    /** Colors.wheel(), one entry per step of the wheel; Sparkles' colors. */
+    public static final Palette WHEEL = wheel();
+
+    private static final LinkedHashMap<String, Palette> palettes = new LinkedHashMap<>();
+    private static volatile Palette override;
+
+    static {
+        register(SIX_COLOR);
+        register(RAINBOW);
+        register(WHEEL);
+        register(Palette.gradient("fire", Palette.DEFAULT_SIZE,
+                                  0x000000, 0x800000, 0xFF4000, 0xFFC000, 0xFF4000, 0x800000));
+        register(Palette.gradient("ocean", Palette.DEFAULT_SIZE,
+                                  0x000040, 0x0040C0, 0x00C0C0, 0x80FFFF, 0x00C0C0, 0x0040C0));
+    }
+
+    private static Palette wheel() {
+        int lut[] = new int[255];
+        for (int i = 0; i < lut.length; i++) {
+            lut[i] = Colors.wheel(i);
+        }
+        return new Palette("wheel", lut);
+    }
+
+    /** Adds a palette, replacing any of the same name. */
+    public static synchronized void register(Palette palette) {
+        palettes.put(palette.getName(), palette);
+    }
+
+    /** The palette with this name, or null. */
+    public static synchronized Palette get(String name) {
+        return palettes.get(name);
+    }
+
+    public static synchronized ArrayList<String> getNames() {
+        return new ArrayList<>(palettes.keySet());
+    }
+
+    /** The palette every controller is told to use, or null if none. */
+    public static Palette getOverride() {
+        return override;
+    }
+
+    /**
+     * Makes every controller use the named palette, or their own again
+     * if name is null or "default". Returns false, changing nothing, if
+     * there is no such palette.
+     */
+    public static boolean setOverride(String name) {
+        if (name == null || name.equals("default")) {
+            override = null;
+            return true;
+        }
+        Palette palette = get(name);
+        if (palette == null) {
+            return false;
+        }
+        override = palette;
+        return true;
+    }
+
+    /** The palette a controller whose own palette is own should use. */
+    public static Palette choose(Palette own) {
+        Palette palette = override;
+        return palette != null ? palette : own;
+    }
+}
@@ -0,0 +1,92 @@
+package lightsim;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * SpiTransport backed by Pi4J's com.pi4j.wiringpi.Spi. Pi4J isn't on the
+ * build classpath, so it is loaded from the Pi's install location at run
+ * time and its methods are bound as MethodHandles. Calls go through
+ * invokeExact, so there is no reflection, boxing or varargs array per
+ * write.
+ */
+public class Pi4jSpiTransport implements SpiTransport {
+    static final String PI4J_JAR = "file:///opt/pi4j/lib/pi4j-core.jar";
+
+    // The handles live in static finals so the JIT can treat them as
+    // constants and inline straight through to the native call. The
+    // holder class is only initialized when a transport is opened.
+    private static class Spi {
+        static final MethodHandle SETUP_MODE;  // (int channel, int speed, int mode) int
+        static final MethodHandle DATA_RW;     // (int channel, byte[] data, int len) int
+        static final Exception LOAD_ERROR;
+
+        static {
+            MethodHandle setupMode = null;
+            MethodHandle dataRw = null;
+            Exception loadError = null;
+            try {
+                URL classLoaderUrls[] = new URL[]{new URL(PI4J_JAR)};
+                URLClassLoader urlClassLoader = new URLClassLoader(classLoaderUrls, Pi4jSpiTransport.class.getClassLoader());
+                Class<?> spiClass = urlClassLoader.loadClass("com.pi4j.wiringpi.Spi");
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                setupMode = lookup.findStatic(spiClass, "wiringPiSPISetupMode",
+                    MethodType.methodType(int.class, int.class, int.class, int.class));
+                dataRw = lookup.findStatic(spiClass, "wiringPiSPIDataRW",
+                    MethodType.methodType(int.class, int.class, byte[].class, int.class));
+            } catch (Exception | LinkageError e) {
+                loadError = e instanceof Exception ? (Exception)e : new Exception(e);
+            }
+            SETUP_MODE = setupMode;
+            DATA_RW = dataRw;
+            LOAD_ERROR = loadError;
+        }
+    }
+
+    private Pi4jSpiTransport() {}
+
+    /**
+     * Loads Pi4J and opens SPI channels 0 through numChannels - 1.
+     * @throws Exception if Pi4J isn't available or a channel can't be
+     *     opened. This is normal when not running on the Pi.
+     */
+    public static Pi4jSpiTransport open(int numChannels, int spiRate) throws Exception {
+        if (Spi.LOAD_ERROR != null) {
+            throw Spi.LOAD_ERROR;
+        }
+        for (int channel = 0; channel < numChannels; channel++) {
+            int result;
+            try {
+                result = (int)Spi.SETUP_MODE.invokeExact(channel, spiRate, 0);
+            } catch (Throwable t) {
+                throw new IOException("wiringPiSPISetupMode failed on channel " + channel, t);
+            }
+            if (result < 0) {
+                throw new IOException("wiringPiSPISetupMode returned " + result + " for channel " + channel);
+            }
+        }
+        return new Pi4jSpiTransport();
+    }
+
+    @Override
+    public void write(int channel, byte[] data, int length) throws IOException {
+        int result;
+        try {
+            result = (int)Spi.DATA_RW.invokeExact(channel, data, length);
+        } catch (Throwable t) {
+            throw new IOException("wiringPiSPIDataRW failed on channel " + channel, t);
+        }
+        if (result < 0) {
+            throw new IOException("wiringPiSPIDataRW returned " + result + " for channel " + channel);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "pi4j";
+    }
+}
@@ -0,0 +1,85 @@
+package lightsim;
+
+import java.util.Arrays;
+
+/**
+ * Scratch planes of packed 0xRRGGBB colors, for saving a slice of lights
+ * while the rest are shifted over it.
+ *
+ * Planes are handed out stack fashion: take a mark(), acquire() what is
+ * needed, and release(mark) when done, which frees everything acquired
+ * since. Released planes and their buffers are kept and reused, so once
+ * the arena has grown to the largest working set it never allocates
+ * again.
+ *
+ * Not thread safe; each LightArray has its own.
+ */
+public class PlaneArena {
+
+    /** A width by height plane of colors, indexed (a, b). */
+    public static class Plane {
+        int width, height;
+        int rgb[] = new int[0];
+
+        public int getWidth()  { return width; }
+        public int getHeight() { return height; }
+
+        public int get(int a, int b) {
+            return rgb[a * height + b];
+        }
+
+        public void set(int a, int b, int value) {
+            rgb[a * height + b] = value;
+        }
+
+        public void fill(int value) {
+            Arrays.fill(rgb, 0, width * height, value);
+        }
+    }
+
+    private Plane planes[] = new Plane[0];
+    private int used;
+
+    /**
+     * Returns a free plane of the given size. Its contents are whatever
+     * it last held.
+     */
+    public Plane acquire(int width, int height) {
+        if (used == planes.length) {
+            planes = Arrays.copyOf(planes, Math.max(4, 2 * planes.length));
+        }
+        Plane plane = planes[used];
+        if (plane == null) {
+            plane = planes[used] = new Plane();
+        }
+        if (plane.rgb.length < width * height) {
+            plane.rgb = new int[width * height];
+        }
+        plane.width = width;
+        plane.height = height;
+        used++;
+        return plane;
+    }
+
+    /** The current allocation point, to pass to release(). */
+    public int mark() {
+        return used;
+    }
+
+    /** Frees every plane acquired since mark was taken. */
+    public void release(int mark) {
+        if (mark < 0 || mark > used) {
+            throw new IllegalArgumentException("Bad plane arena mark " + mark);
+        }
+        used = mark;
+    }
+
+    public void releaseAll() {
+        used = 0;
+    }
+
+    /** Number of planes currently acquired. */
+    public int size() {
+        return used;
+    }
+}
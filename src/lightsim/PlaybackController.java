@@ -0,0 +1,169 @@
+package lightsim;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Plays back a file written by FrameRecorder, looping at the end. The
+ * file is memory-mapped, so frames are paged in by the OS as they are
+ * played, and each step is a binary search on the frame times plus one
+ * copy of the frame into the light array's color store. No colors
+ * are computed, so a pre-rendered show costs next to nothing to run.
+ * After the last frame, playback carries on from the recording's loop
+ * frame.
+ *
+ * The binary search needs frame times that never go backwards, which
+ * FrameRecorder makes sure of. A file written some other way whose
+ * times do go backwards will play the wrong frames.
+ */
+public class PlaybackController extends LightController {
+    // The file is mapped in windows of whole frames, each under 2 GiB,
+    // so a recording of any length can be played.
+    static final long MAX_WINDOW_BYTES = Integer.MAX_VALUE;
+
+    final String path;
+    final MappedByteBuffer windows[];
+    final IntBuffer windowInts[];   // Each window viewed as ints, built once.
+    final int framesPerWindow;
+    final int lightCount;
+    final int recordSize;
+    final int frameCount;
+    final double startTime;
+    final double duration;
+    final double loopTime;
+    int currentFrame = -1;
+    double playbackStart = Double.NaN;
+
+    public PlaybackController(String path) throws IOException {
+        this(path, MAX_WINDOW_BYTES);
+    }
+
+    PlaybackController(String path, long maxWindowBytes) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(FrameRecorder.HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.hasRemaining() || header.getInt(0) != FrameRecorder.MAGIC) {
+                throw new IOException(path + " is not a LightSim recording");
+            }
+            if (header.getInt(4) != FrameRecorder.VERSION) {
+                throw new IOException(path + " has unsupported version " + header.getInt(4));
+            }
+            lightCount = header.getInt(8);
+            if (lightCount < 0 || FrameRecorder.recordSize(lightCount) > maxWindowBytes) {
+                throw new IOException(path + " has a bad light count " + lightCount);
+            }
+            recordSize = FrameRecorder.recordSize(lightCount);
+            // Ignore a partly written last frame, e.g. if recording was cut off.
+            long frames = (size - FrameRecorder.HEADER_SIZE) / recordSize;
+            if (frames == 0) {
+                throw new IOException(path + " has no frames");
+            }
+            if (frames > Integer.MAX_VALUE) {
+                throw new IOException(path + " has too many frames to play");
+            }
+            frameCount = (int)frames;
+
+            framesPerWindow = (int)(maxWindowBytes / recordSize);
+            int windowCount = (frameCount + framesPerWindow - 1) / framesPerWindow;
+            windows = new MappedByteBuffer[windowCount];
+            windowInts = new IntBuffer[windowCount];
+            for (int w = 0; w < windowCount; w++) {
+                long first = (long)w * framesPerWindow;
+                long count = Math.min(framesPerWindow, frameCount - first);
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                         FrameRecorder.HEADER_SIZE + first * recordSize,
+                                         count * recordSize);
+                windowInts[w] = windows[w].asIntBuffer();
+            }
+            startTime = frameTime(0);
+            // Hold the last frame for one frame's length before looping.
+            double lastTime = frameTime(frameCount - 1) - startTime;
+            duration = frameCount > 1 ? lastTime * frameCount / (frameCount - 1) : 1;
+            int loopFrame = header.getInt(12);
+            loopTime = loopFrame > 0 && loopFrame < frameCount
+                ? frameTime(loopFrame) - startTime : 0;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "Playback: " + new File(path).getName();
+    }
+
+    @Override
+    public void init(LightArray lightArray) {
+        super.init(lightArray);
+        if (lightArray.getLightCount() != lightCount) {
+            Console.log("%s has %d lights but the array has %d.", path,
+                        lightCount, lightArray.getLightCount());
+        }
+        currentFrame = -1;
+        playbackStart = Double.NaN;
+    }
+
+    @Override
+    public boolean step(double time) {
+        // The first step shows the first frame, whatever the clock says.
+        if (Double.isNaN(playbackStart)) {
+            playbackStart = time;
+        }
+        // Allow a microsecond for rounding, so that replaying at the
+        // recorded frame rate lands on every frame, including across the
+        // loop.
+        double position = time - playbackStart + 1e-6;
+        if (position >= duration) {
+            position = loopTime + (position - duration) % (duration - loopTime);
+        }
+        int frame = frameAt(startTime + position);
+        if (frame == currentFrame) {
+            return true;
+        }
+        currentFrame = frame;
+
+        int colors[] = my_light_array.getColorData();
+        IntBuffer ints = windowInts[frame / framesPerWindow];
+        // The colors follow the frame's 8-byte time.
+        int offset = (frame % framesPerWindow) * (recordSize / 4) + 2;
+        int count = Math.min(lightCount, colors.length);
+        for (int i = 0; i < count; i++) {
+            colors[i] = ints.get(offset + i);
+        }
+        return true;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    // Index of the last frame whose time is at or before time.
+    int frameAt(double time) {
+        int low = 0;
+        int high = frameCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (frameTime(mid) <= time) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private double frameTime(int frame) {
+        return windows[frame / framesPerWindow]
+            .getDouble((frame % framesPerWindow) * recordSize);
+    }
+}
@@ -12,7 +12,6 @@
 
 package lightsim;
 
-import java.awt.Color;
 
 //======================================================================
 // class PulseController
@@ -24,8 +23,8 @@ public class PulseController extends LightController
     private static final double PI = 3.141592;
     private static final double DW = 2.0*PI / (WAVE_LENGTH+4);
     private boolean on_wave[];
-    private Color blue_wave[];
-    private static final Color OFF_COLOR = new Color (155,155,155);
+    private int blue_wave[];            // Packed colors.
+    private static final int OFF_COLOR = Colors.rgb (155,155,155);
     private int i0;
 
   // ----- constructor -------------------------------------------------
@@ -33,7 +32,7 @@ public class PulseController extends LightController
     public PulseController()
         {
         on_wave = new boolean[WAVE_LENGTH+4];
-        blue_wave = new Color[WAVE_LENGTH+4];
+        blue_wave = new int[WAVE_LENGTH+4];
         }
 
   // ----- init() -----------------------------------------------------
@@ -68,7 +67,7 @@ public class PulseController extends LightController
             if (wave > 0.5)
                 {
                 on_wave[i] = true;
-                blue_wave[i] = new Color (0, 0, (int) (254.0*wave));
+                blue_wave[i] = Colors.rgb (0, 0, (int) (254.0*wave));
                 }
               else
                 {
@@ -86,7 +85,7 @@ public class PulseController extends LightController
         for (LightArray.Light light : my_light_array.getLights())
             {
             final boolean isOn = on_wave[light.iy];
-            light.color = isOn ? blue_wave[light.iy] : Color.BLACK;
+            light.setRGB (isOn ? blue_wave[light.iy] : 0);
             }
         }
     }
@@ -99,6 +99,28 @@ public class Server implements HttpHandler, ExecListener {
                     }
                 }
                 break;
+            case "brightness": {
+                Double value = parseDouble(parseQuery(exchange.getRequestURI()).get("value"));
+                if (value != null) {
+                    lightExec.setBrightness(value);
+                }
+                break;
+            }
+            case "palette": {
+                // name=default goes back to each program's own palette.
+                String paletteName = parseQuery(exchange.getRequestURI()).get("name");
+                if (paletteName != null && !Palettes.setOverride(paletteName)) {
+                    Console.log("Ignoring unknown palette in request: %s", paletteName);
+                }
+                break;
+            }
+            case "gamma": {
+                Double value = parseDouble(parseQuery(exchange.getRequestURI()).get("value"));
+                if (value != null && value > 0) {
+                    lightExec.setGamma(value);
+                }
+                break;
+            }
         }
 
         Headers requestHeaders = exchange.getRequestHeaders();
@@ -120,6 +142,7 @@ public class Server implements HttpHandler, ExecListener {
         Clock.Event nextSunEvent = lightExec.nextSunEvent();
         String currentProgram = lightExec.getControllerName();
         Date currentTime = new Date();
+        Palette palette = Palettes.getOverride();
 
         String statusJson = "{" +
             "\"running\":" + (isRunning ? "true" : "false") +
@@ -127,7 +150,12 @@ public class Server implements HttpHandler, ExecListener {
             ",\"scheduled\":" + (isScheduled ? "true" : "false") +
             ",\"currentProgram\":\"" + currentProgram + "\"" +
             ",\"currentTime\":\"" + currentTime.toString() + "\"" +
-            ",\"controllers\":" + getControllersJson();
+            ",\"brightness\":" + lightExec.getBrightness() +
+            ",\"gamma\":" + lightExec.getGamma() +
+            ",\"palette\":\"" + (palette != null ? palette.getName() : "default") + "\"" +
+            ",\"palettes\":" + getPalettesJson() +
+            ",\"controllers\":" + getControllersJson() +
+            ",\"frameStats\":" + lightExec.getStats().toJson();
         if (nextSunEvent != null) {
             statusJson +=
                 ",\"nextEventType\": \"" + nextSunEvent.type.toString() + "\"" +
@@ -151,6 +179,19 @@ public class Server implements HttpHandler, ExecListener {
         return controllersJson;
     }
 
+    String getPalettesJson() {
+        String palettesJson = "[";
+        ArrayList<String> names = Palettes.getNames();
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) {
+                palettesJson += ",";
+            }
+            palettesJson += "\"" + names.get(i) + "\"";
+        }
+        palettesJson += "]";
+        return palettesJson;
+    }
+
     Map<String, String> parseQuery(URI uri) {
         String query = uri.getQuery();
         String[] pairs = query.split("&");
@@ -162,6 +203,24 @@ public class Server implements HttpHandler, ExecListener {
         return queryMap;
     }
 
+    Double parseDouble(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            // Double.valueOf() also takes "NaN" and "Infinity", which no
+            // setting wants.
+            Double number = Double.valueOf(value);
+            if (!number.isNaN() && !number.isInfinite()) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Logged below.
+        }
+        Console.log("Ignoring bad number in request: %s", value);
+        return null;
+    }
+
     @Override
     public void execStateChanged(boolean running, boolean paused, LightController controller) {
 
@@ -3,8 +3,6 @@ package lightsim;
 import java.awt.Color;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Random;
 import lightsim.LightArray.Light;
 
 public class ShootingStarController extends LightController {
@@ -15,10 +13,16 @@ public class ShootingStarController extends LightController {
     static Color bgColor = new Color(0, 0, 0);
     static Color starColor = new Color(255, 255, 0);
 
+    // Star colors: 1/3 chance each of white, yellow, orange.
+    static final int STAR_COLORS[] = { 0xFFFFFF, 0xFFFF00, 0xFFE63C };
+
     LightArray.Light strings[][];
     LightArray lightArray;
-    HashMap activeStrings;
-    Random random;
+    boolean activeStrings[];
+
+    // Finished stars, kept for reuse so a steady stream of stars doesn't
+    // allocate.
+    ArrayList<StarAnimation> starPool = new ArrayList<>();
 
     double lastStepTime = 0;
 
@@ -26,9 +30,8 @@ public class ShootingStarController extends LightController {
         super.init(light_array);
         this.lightArray = light_array;
         strings = light_array.getStrings();
-        random = new Random();
         lastStepTime = 0;
-        activeStrings = new HashMap();
+        activeStrings = new boolean[strings.length];
         createAnimation(0, 0);
     }
 
@@ -51,11 +54,14 @@ public class ShootingStarController extends LightController {
 
     private void createAnimation(int string, double startTime) {
         // Console.log("starting string " + string);
-        StarAnimation animation = new StarAnimation(string);
+        StarAnimation animation = starPool.isEmpty()
+                                  ? new StarAnimation()
+                                  : starPool.remove(starPool.size() - 1);
+        animation.reset(string);
         animation.setDuration(STAR_DURATION);
         animation.start(startTime);
         addAnimation(animation);
-        activeStrings.put(string, Boolean.TRUE);
+        activeStrings[string] = true;
 
     }
 
@@ -68,11 +74,10 @@ public class ShootingStarController extends LightController {
             (random.nextDouble() < (targetStarsToAdd % 1) ? 1 : 0);
         // Console.log("target to add: " + starsToAdd);
         for (int i = 0; i < starsToAdd; i++) {
-            int stringNum = random.nextInt(50);
+            int stringNum = random.nextInt(strings.length);
 
-            Boolean isActive = (Boolean) activeStrings.getOrDefault(stringNum, Boolean.FALSE);
-            // Console.log("string " + stringNum + " isActive " + isActive.booleanValue());
-            if (!(isActive.equals(Boolean.TRUE))) {
+            // Console.log("string " + stringNum + " isActive " + activeStrings[stringNum]);
+            if (!activeStrings[stringNum]) {
                 createAnimation(stringNum, time);
             }
         }
@@ -86,25 +91,30 @@ public class ShootingStarController extends LightController {
         int fadeInSlices;
         int fadeOutSlices;
         int posOffset;
-        Color varColor;
-
-        public StarAnimation(int columnIndex) {
-            Random r = new Random();
+        int varColor;
+        // How much brighter each light up the string peaks than the one
+        // below it, so the top light peaks at the same height factor
+        // whatever the string's length.
+        double heightStep;
+
+        // Sets the star up afresh on a string, whether new or reused.
+        public void reset(int columnIndex) {
             this.columnIndex = columnIndex;
-            this.timeSlice = (0.2 + (r.nextDouble() * 0.4)) / 3.0;
-            this.fadeInSlices = 1 + (r.nextInt(8));
-            this.fadeOutSlices = 4 + (r.nextInt(4));
+            this.heightStep = 0.9 / Math.max(1, strings[columnIndex].length - 1);
+            this.timeSlice = (0.2 + (random.nextDouble() * 0.4)) / 3.0;
+            this.fadeInSlices = 1 + (random.nextInt(8));
+            this.fadeOutSlices = 4 + (random.nextInt(4));
             // this.posOffset = 0 - (r.nextInt(5));
             this.posOffset = 0;
 
             // this.varColor = new Color(random.nextInt(255), random.nextInt(255), random.nextInt(255));
             float colorBucket = random.nextFloat(); // 1/3 chance of white, yellow, orange
             if (colorBucket <= 0.33) {
-              this.varColor = new Color(255, 255, 255);
+              this.varColor = STAR_COLORS[0];
             } else if (colorBucket <= 0.67) {
-              this.varColor = new Color(255, 255, 0);
+              this.varColor = STAR_COLORS[1];
             } else {
-              this.varColor = new Color(255, 230, 60);
+              this.varColor = STAR_COLORS[2];
             }
 
             // Console.log("added string " + columnIndex +
@@ -121,7 +131,7 @@ public class ShootingStarController extends LightController {
         private double getLightIntensity(int pos, double t) {
             t = t * STAR_DURATION;
             // Console.log("  getLightIntensity pos " + pos + " t " + formatLogDouble(t));
-            double heightFactor = 0.05 + (pos - 1) * 0.1;
+            double heightFactor = 0.05 + (pos - 1) * heightStep;
             double maxIntensity = intensityBase + (heightFactor * (1.0 - intensityBase));
 
             double startTime = (pos * timeSlice);
@@ -171,47 +181,35 @@ public class ShootingStarController extends LightController {
             // double lowerIntensity = intensity * (1 - (starHeight - lowerLight));
             // double upperIntensity = intensity * (1 - (upperLight - starHeight));
 
-            for (int i = 0; i < 10; ++i) {
-                if (9 - i + posOffset >= 0) {
-                  addIntensityToLight(strings[columnIndex][9 - i + posOffset], getLightIntensity(i, t));
+            Light string[] = strings[columnIndex];
+            int top = string.length - 1;
+            for (int i = 0; i < string.length; ++i) {
+                if (top - i + posOffset >= 0 && top - i + posOffset < string.length) {
+                  addIntensityToLight(string[top - i + posOffset], getLightIntensity(i, t));
                 }
             }
         }
 
         public void onComplete() {
-            Console.log("removing string " + columnIndex);
-            activeStrings.put(columnIndex, Boolean.FALSE);
+            // Console.log("removing string " + columnIndex);
+            activeStrings[columnIndex] = false;
+            starPool.add(this);
         }
 
         private String formatLogDouble(double f) {
             return new DecimalFormat("0.000").format(f);
         }
 
-        private int interpolateInts(int x, int y, double p) {
-            return (int) Math.round(x * (1.0 - p) + y * p);
-        }
-        private Color interpolateColors(Color x, Color y, double p) {
-            //Console.log ("interpolate " + x + " " + y + " " + formatLogDouble(p) +
-            //    interpolateInts(x.getRed(), y.getRed(), p) + " " +
-            //    interpolateInts(x.getGreen(), y.getGreen(), p) + " " +
-            //    interpolateInts(x.getBlue(), y.getBlue(), p));
-            Color c = new Color(
-                interpolateInts(x.getRed(), y.getRed(), p),
-                interpolateInts(x.getGreen(), y.getGreen(), p),
-                interpolateInts(x.getBlue(), y.getBlue(), p));
-            return c;
-        }
-
         private void addIntensityToLight(Light light, double intensity) {
-            Color currentColor = light.getColor();
-            Color newColor = interpolateColors(currentColor, varColor, intensity);
+            int currentColor = light.getRGB();
+            int newColor = Colors.interpolate(currentColor, varColor, intensity);
             /*
             Console.log("interpolate: orig " + currentColor.toString() +
                 " target " + starColor.toString() +
                 " interp " + newColor.toString() +
                 " p " + intensity);
             */
-            light.setColor(newColor);
+            light.setRGB(newColor);
         }
     }
 }
@@ -0,0 +1,141 @@
+package lightsim;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Pre-renders controllers whose output only depends on time (see
+ * LightController.bakeCycleSeconds()) into FrameRecorder files, and hands
+ * LeanExec a PlaybackController for them in place of the real thing.
+ *
+ * A bake is one cycle of lead-in followed by one cycle that loops, at
+ * LeanExec's frame rate. Files are named after the controller, its
+ * bakeVersion() and the geometry's signature, so a controller whose
+ * output changes, or a new installation layout, just gets re-baked; a
+ * bake with the wrong name, version, geometry or length is ignored.
+ *
+ * Frames are stored as packed RGB rather than encoded wire bytes so that
+ * brightness and gamma, which are applied in the SPI encoder, keep
+ * working on baked shows.
+ *
+ * Usage: LightSim --bake [--controller=name] [--bake-dir=dir]
+ *        [--geometry=path]
+ */
+public class ShowBaker {
+    public static final String DEFAULT_DIR = "bakes";
+
+    final File dir;
+    final Geometry geometry;
+
+    public ShowBaker(String dir, Geometry geometry) {
+        this.dir = new File(dir);
+        this.geometry = geometry;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    public static boolean isBakeable(LightController controller) {
+        return controller.bakeCycleSeconds() > 0;
+    }
+
+    File bakeFile(LightController controller) {
+        String key = controller.name().replaceAll("[^A-Za-z0-9]+", "_");
+        return new File(dir, key + "-v" + controller.bakeVersion()
+                        + "-" + geometry.getSignature() + ".lsfr");
+    }
+
+    static int cycleFrames(LightController controller) {
+        return Math.max(1, (int)Math.round(controller.bakeCycleSeconds() * LeanExec.FRAMERATE_HZ));
+    }
+
+    /**
+     * Renders controller's bake, replacing any existing one. The file is
+     * written under a temporary name and renamed when complete, so a
+     * half-written bake is never picked up.
+     */
+    public File bake(LightController controller) throws IOException {
+        if (!isBakeable(controller)) {
+            throw new IllegalArgumentException(controller.name() + " can't be baked");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Couldn't create " + dir);
+        }
+        File file = bakeFile(controller);
+        File temp = new File(dir, file.getName() + ".tmp");
+        int cycle = cycleFrames(controller);
+
+        SimulationRunner runner = new SimulationRunner(SimulationRunner.DEFAULT_SEED,
+                                                       LeanExec.FRAMERATE_HZ, geometry);
+        FrameRecorder recorder = new FrameRecorder(temp.getPath(),
+                                                   runner.lights.getLightCount(), cycle);
+        try {
+            runner.run(controller, 2L * cycle, null, recorder);
+        } finally {
+            recorder.close();
+        }
+        if (file.exists() && !file.delete() || !temp.renameTo(file)) {
+            throw new IOException("Couldn't move " + temp + " to " + file);
+        }
+        return file;
+    }
+
+    /**
+     * Returns a player for controller's bake, or null if the controller
+     * isn't bakeable or has no valid bake.
+     */
+    public PlaybackController load(LightController controller) {
+        if (!isBakeable(controller)) {
+            return null;
+        }
+        File file = bakeFile(controller);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            PlaybackController playback = new PlaybackController(file.getPath());
+            if (playback.getFrameCount() != 2 * cycleFrames(controller)) {
+                Console.log("Ignoring bake %s: expected %d frames, found %d.", file,
+                            2 * cycleFrames(controller), playback.getFrameCount());
+                return null;
+            }
+            return playback;
+        } catch (IOException e) {
+            Console.log("Ignoring bake %s: %s", file, e);
+            return null;
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        String controllerName = "all";
+        String dir = DEFAULT_DIR;
+        Geometry geometry = Geometry.getDefault();
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--controller=")) {
+                controllerName = value;
+            } else if (arg.startsWith("--bake-dir=")) {
+                dir = value;
+            } else if (arg.startsWith("--geometry=")) {
+                geometry = Geometry.load(value);
+            }
+        }
+
+        ShowBaker baker = new ShowBaker(dir, geometry);
+        ArrayList<LightController> baked = new ArrayList<>();
+        for (LightController controller : LightSim.createControllers()) {
+            if ((controllerName.equals("all") || controller.name().equals(controllerName))
+                    && isBakeable(controller)) {
+                File file = baker.bake(controller);
+                Console.log("Baked %s: %d frames to %s", controller.name(),
+                            2 * cycleFrames(controller), file);
+                baked.add(controller);
+            }
+        }
+        if (baked.isEmpty()) {
+            Console.log("Nothing to bake for \"%s\".", controllerName);
+        }
+    }
+}
@@ -29,6 +29,7 @@ import lightsim.LightArray.Light;
 public class SimpleSnakesController extends SpriteController
     {
     private Light[][][] left_lights, right_lights;
+    private Adjacency left_adjacency, right_adjacency;
     private ArrayList<Sprite>  left_sprites, right_sprites,
                         left_dead_sprites, right_dead_sprites;
     private ArrayList left_new_sprites, right_new_sprites;
@@ -65,6 +66,10 @@ public class SimpleSnakesController extends SpriteController
         super.init (light_array);
         left_lights = my_light_array.getLeftLights();
         right_lights = my_light_array.getRightLights();
+        left_adjacency
+            = my_light_array.getAdjacency (left_lights, Adjacency.FACES);
+        right_adjacency
+            = my_light_array.getAdjacency (right_lights, Adjacency.FACES);
         init_left();
         init_right();
         }
@@ -92,12 +97,13 @@ public class SimpleSnakesController extends SpriteController
         for (int i=0; i<N_APPLES; i++)
             {
             Light l = SpriteController.pickRandomLight (left_lights);
-            left_sprites.add (new AppleSprite(l));
+            left_sprites.add (new AppleSprite(l, occupancy));
             }
 
-        SnakeSprite snake = new SnakeSprite (Color.GREEN, left_lights);
+        SnakeSprite snake
+            = new SnakeSprite (Color.GREEN, left_lights,
+                               left_adjacency, occupancy);
         left_sprites.add (snake);
-        snake.setSprites (left_sprites);
         }
 
   // ----- init_right() -------------------------------------------------
@@ -122,12 +128,13 @@ public class SimpleSnakesController extends SpriteController
 
         for (int i=0; i<N_APPLES; i++)
           { Light l = SpriteController.pickRandomLight (right_lights);
-            right_sprites.add (new AppleSprite(l));
+            right_sprites.add (new AppleSprite(l, occupancy));
             }
 
-        SnakeSprite snake = new SnakeSprite (Color.ORANGE, right_lights);
+        SnakeSprite snake
+            = new SnakeSprite (Color.ORANGE, right_lights,
+                               right_adjacency, occupancy);
         right_sprites.add (snake);
-        snake.setSprites (right_sprites);
         }
 
   // ----- step() ------------------------------------------------------
@@ -165,7 +172,8 @@ public class SimpleSnakesController extends SpriteController
                   else if (sprite instanceof AppleSprite)
                   { left_new_sprites.add (
                         new AppleSprite(
-                            SpriteController.pickRandomLight(left_lights)));
+                            SpriteController.pickRandomLight(left_lights),
+                            occupancy));
                     }
                   else if (sprite instanceof StarBurstSprite)
                   { --left_burst_count;
@@ -205,8 +213,8 @@ public class SimpleSnakesController extends SpriteController
                         left_sprites.add ((Sprite) obj);
                     if (obj instanceof Color)
                       { SnakeSprite snake = new SnakeSprite (
-                                        ((Color) obj), left_lights);
-                        snake.setSprites (left_sprites);
+                                        ((Color) obj), left_lights,
+                                        left_adjacency, occupancy);
                         left_sprites.add (snake);
                         }
                     }
@@ -239,7 +247,8 @@ public class SimpleSnakesController extends SpriteController
                   else if (sprite instanceof AppleSprite)
                   { right_new_sprites.add (
                         new AppleSprite(
-                            SpriteController.pickRandomLight(right_lights)));
+                            SpriteController.pickRandomLight(right_lights),
+                            occupancy));
                     }
                   else if (sprite instanceof StarBurstSprite)
                   { --right_burst_count;
@@ -279,8 +288,8 @@ public class SimpleSnakesController extends SpriteController
                         right_sprites.add ((Sprite) obj);
                     if (obj instanceof Color)
                       { SnakeSprite snake = new SnakeSprite (
-                                        ((Color) obj), right_lights);
-                        snake.setSprites (right_sprites);
+                                        ((Color) obj), right_lights,
+                                        right_adjacency, occupancy);
                         right_sprites.add (snake);
                         }
                     }
@@ -0,0 +1,194 @@
+package lightsim;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Runs controllers headless against a VirtualClock, as fast as the CPU
+ * allows, with seeded randomness. Two runs with the same controller, seed
+ * and frame count produce the same frames, so the per-frame CRC32
+ * checksums it writes can be diffed between commits, and hours of show
+ * time can be soak tested in seconds.
+ *
+ * With --record=path, a single controller's frames are also written as a
+ * FrameRecorder file, to play back or to keep as a regression fixture.
+ *
+ * Usage: LightSim --simulate [--controller=name|all] [--frames=n |
+ *        --seconds=s] [--seed=n] [--fps=n] [--checksums=path]
+ *        [--record=path] [--geometry=path]
+ */
+public class SimulationRunner {
+    public static final long DEFAULT_SEED = 1;
+
+    final LightArray lights;
+    final VirtualClock clock = new VirtualClock();
+    final CRC32 crc = new CRC32();
+    final ByteBuffer frameBytes;
+    final long framePeriodNanos;
+    final long seed;
+
+    public SimulationRunner(long seed, double framerateHz) {
+        this(seed, framerateHz, Geometry.getDefault());
+    }
+
+    public SimulationRunner(long seed, double framerateHz, Geometry geometry) {
+        this.seed = seed;
+        lights = new LightArray(geometry);
+        framePeriodNanos = (long)(1e9 / framerateHz);
+        frameBytes = ByteBuffer.allocate(lights.getLightCount() * 4);
+    }
+
+    /** What a run produced. */
+    public static class Result {
+        public final String controllerName;
+        public final long frames;
+        public final double simulatedSeconds;
+        public final double wallSeconds;
+        // CRC32 of every frame's checksum in order; equal digests mean
+        // equal runs.
+        public final long digest;
+
+        Result(String controllerName, long frames, double simulatedSeconds,
+               double wallSeconds, long digest) {
+            this.controllerName = controllerName;
+            this.frames = frames;
+            this.simulatedSeconds = simulatedSeconds;
+            this.wallSeconds = wallSeconds;
+            this.digest = digest;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-16s %8d frames  %9.1f s simulated in %6.2f s  (%.1f us/frame)  digest %08x",
+                                 controllerName, frames, simulatedSeconds, wallSeconds,
+                                 wallSeconds * 1e6 / Math.max(frames, 1), digest);
+        }
+    }
+
+    /**
+     * Runs controller from a fresh start for the given number of frames.
+     * If checksums isn't null, a line of frame number, time and CRC32 is
+     * written to it for every frame.
+     */
+    public Result run(LightController controller, long frames, PrintWriter checksums) {
+        try {
+            return run(controller, frames, checksums, null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // Nothing is recorded.
+        }
+    }
+
+    /** As above, and writes every frame to recorder if it isn't null. */
+    public Result run(LightController controller, long frames, PrintWriter checksums,
+                      FrameRecorder recorder) throws IOException {
+        LSUtils.setSeed(seed);
+        clock.reset();
+        lights.reset();
+        controller.init(lights);
+
+        CRC32 digest = new CRC32();
+        long start = System.nanoTime();
+        double time = 0;
+        for (long frame = 0; frame < frames; frame++) {
+            clock.advance(framePeriodNanos);
+            time = clock.tick();
+            controller.step(time);
+
+            long checksum = checksum(lights.getColorData());
+            digest.update((int)(checksum >>> 24));
+            digest.update((int)(checksum >>> 16));
+            digest.update((int)(checksum >>> 8));
+            digest.update((int)checksum);
+            if (checksums != null) {
+                // Locale.ROOT, so checksum files compare across machines.
+                checksums.printf(Locale.ROOT, "%s\t%d\t%.6f\t%08x%n", controller.name(), frame, time, checksum);
+            }
+            if (recorder != null) {
+                recorder.write(lights.getColorData(), time);
+            }
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+        return new Result(controller.name(), frames, time, wallSeconds, digest.getValue());
+    }
+
+    long checksum(int rgb[]) {
+        frameBytes.clear();
+        frameBytes.asIntBuffer().put(rgb);
+        crc.reset();
+        crc.update(frameBytes.array(), 0, frameBytes.capacity());
+        return crc.getValue();
+    }
+
+    public static void main(String args[]) throws IOException {
+        String controllerName = "all";
+        long frames = 60 * 60;
+        long seed = DEFAULT_SEED;
+        double fps = LeanExec.FRAMERATE_HZ;
+        double seconds = -1;
+        String checksumPath = null;
+        String recordPath = null;
+        Geometry geometry = Geometry.getDefault();
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--controller=")) {
+                controllerName = value;
+            } else if (arg.startsWith("--frames=")) {
+                frames = Long.parseLong(value);
+            } else if (arg.startsWith("--seconds=")) {
+                seconds = Double.parseDouble(value);
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            } else if (arg.startsWith("--fps=")) {
+                fps = Double.parseDouble(value);
+            } else if (arg.startsWith("--checksums=")) {
+                checksumPath = value;
+            } else if (arg.startsWith("--record=")) {
+                recordPath = value;
+            } else if (arg.startsWith("--geometry=")) {
+                geometry = Geometry.load(value);
+            }
+        }
+        if (seconds >= 0) {
+            frames = (long)Math.ceil(seconds * fps);
+        }
+
+        ArrayList<LightController> controllers = new ArrayList<>();
+        for (LightController controller : LightSim.createControllers()) {
+            if (controllerName.equals("all") || controller.name().equals(controllerName)) {
+                controllers.add(controller);
+            }
+        }
+        if (controllers.isEmpty()) {
+            Console.log("No controller named \"%s\".", controllerName);
+            System.exit(1);
+        }
+
+        if (recordPath != null && controllers.size() > 1) {
+            Console.log("--record needs a single --controller.");
+            System.exit(1);
+        }
+
+        SimulationRunner runner = new SimulationRunner(seed, fps, geometry);
+        PrintWriter checksums = checksumPath == null ? null
+            : new PrintWriter(new FileWriter(checksumPath));
+        FrameRecorder recorder = recordPath == null ? null
+            : new FrameRecorder(recordPath, runner.lights.getLightCount());
+        try {
+            for (LightController controller : controllers) {
+                Console.log("%s", runner.run(controller, frames, checksums, recorder));
+            }
+        } finally {
+            if (checksums != null) {
+                checksums.close();
+            }
+            if (recorder != null) {
+                recorder.close();
+            }
+        }
+    }
+}
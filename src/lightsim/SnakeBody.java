@@ -0,0 +1,98 @@
+package lightsim;
+
+import lightsim.LightArray.Light;
+
+/**
+ * The lights of a snake, from tail (index 0) to head, in a ring buffer.
+ *
+ * A snake moves by adding a light at its head and dropping one from its
+ * tail, and grows at its tail; all of these are O(1), where an ArrayList
+ * would shift the whole body to add or drop at the front. Every light
+ * added is claimed for the snake in the Occupancy, and every light
+ * dropped is released, so contains() is O(1) as well.
+ */
+public class SnakeBody {
+    private final Sprite owner;
+    private final Occupancy occupancy;
+    private Light ring[] = new Light[16];
+    private int tail;           // Ring slot of index 0.
+    private int size;
+
+    public SnakeBody(Sprite owner, Occupancy occupancy) {
+        this.owner = owner;
+        this.occupancy = occupancy;
+    }
+
+    public int size()          { return size; }
+    public boolean isEmpty()   { return size == 0; }
+
+    /** Light i of the body, counting from the tail. */
+    public Light get(int i) {
+        return ring[(tail + i) & (ring.length - 1)];
+    }
+
+    public Light getTail() {
+        return size == 0 ? null : ring[tail];
+    }
+
+    public Light getHead() {
+        return size == 0 ? null : get(size - 1);
+    }
+
+    public boolean contains(Light light) {
+        return occupancy.has(light, owner);
+    }
+
+    public void addTail(Light light) {
+        grow();
+        tail = (tail - 1) & (ring.length - 1);
+        ring[tail] = light;
+        size++;
+        occupancy.claim(light, owner);
+    }
+
+    public void addHead(Light light) {
+        grow();
+        ring[(tail + size) & (ring.length - 1)] = light;
+        size++;
+        occupancy.claim(light, owner);
+    }
+
+    public Light removeTail() {
+        Light light = ring[tail];
+        ring[tail] = null;
+        tail = (tail + 1) & (ring.length - 1);
+        size--;
+        occupancy.release(light, owner);
+        return light;
+    }
+
+    public Light removeHead() {
+        int slot = (tail + size - 1) & (ring.length - 1);
+        Light light = ring[slot];
+        ring[slot] = null;
+        size--;
+        occupancy.release(light, owner);
+        return light;
+    }
+
+    public void clear() {
+        while (size > 0) {
+            removeTail();
+        }
+        tail = 0;
+    }
+
+    // Doubles the ring when it is full, unwrapping it so the tail is at 0.
+    private void grow() {
+        if (size < ring.length) {
+            return;
+        }
+        Light bigger[] = new Light[2 * ring.length];
+        for (int i = 0; i < size; i++) {
+            bigger[i] = get(i);
+        }
+        ring = bigger;
+        tail = 0;
+    }
+}
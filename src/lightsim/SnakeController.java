@@ -38,10 +38,10 @@ public class SnakeController extends SpriteController
   //
     protected class Snake extends Sprite
         {
-      // Container for the body "segments".  The body head is at
-      // the beginning of the list.
+      // Container for the body "segments", kept in a ring buffer.
+      // The body tail is at index 0 and the head at the end.
       //
-        private ArrayList<Light> body;
+        private SnakeBody body;
         private Light  head;
         private Color  color;
         private int t_next;
@@ -56,7 +56,7 @@ public class SnakeController extends SpriteController
         public Snake (Color color)
             {
             this.color = color;
-            body = new ArrayList<>();
+            body = new SnakeBody (this, occupancy);
             build_snake();
             t_next = 0;
             
@@ -82,7 +82,7 @@ public class SnakeController extends SpriteController
             }
 
         public boolean died()   { return died; }
-        public ArrayList<Light> getBody()   { return body; }
+        public SnakeBody getBody()  { return body; }
         public Color getColor() { return color; }
         public int getSize()    { return body.size(); }
         public boolean isEating()   { return eating_snake; }
@@ -92,11 +92,11 @@ public class SnakeController extends SpriteController
             if (body.isEmpty())
               { head = light;
                 light.setState (Color.MAGENTA, true);
-                body.add (light);
+                body.addHead (light);
                 }
               else
               { light.setState (color, true);
-                body.add (0, light);
+                body.addTail (light);
                 }
             }
         
@@ -137,8 +137,8 @@ public class SnakeController extends SpriteController
         @Override
         public void clear()             
             {
-            for (Light l : body)
-                l.setState (Color.BLACK, false);
+            for (int i=0; i<body.size(); i++)
+                body.get(i).setState (Color.BLACK, false);
             body.clear();
             head = null;
             my_big_meal = null;
@@ -146,11 +146,8 @@ public class SnakeController extends SpriteController
 
         public Light getHead()              { return head; }
         public Light getTail()              
-            { 
-            if (!body.isEmpty())
-                return body.get(0);
-              else
-                return null;
+            {
+            return body.getTail();
             }
 
         @Override
@@ -161,16 +158,12 @@ public class SnakeController extends SpriteController
         private void grow()
             {
             Light tail = getTail();
-            int ix = tail.ix;
-            if (ix > 4)  ix = ix - 7;
-            int iy = tail.iy;
-            int iz = tail.iz;
-            find_adjacent_lights (ix, iy, iz, this);
+            find_adjacent_lights (tail, this);
             if (adjacent_lights.size() > 0)
               { int pick = LSUtils.pickNumber (0, adjacent_lights.size()-1);
                 Light new_tail = adjacent_lights.get (pick);
                 new_tail.setState (color, true);
-                body.add (0, new_tail);
+                body.addTail (new_tail);
                 }
               else
               { died = true;
@@ -222,16 +215,15 @@ public class SnakeController extends SpriteController
                         new_head.setState (my_big_meal.getHead());
                         my_big_meal.head.setState (Color.BLACK, false);
                         my_big_meal.head = new_head;
-                        my_big_meal.body.remove (n-1);
+                        my_big_meal.body.removeHead();
                         }
                       else
                       { my_big_meal.head.setState (Color.BLACK, false);
-                        while (my_big_meal.getSize() > 0)
-                            my_big_meal.body.remove(0);
+                        my_big_meal.body.clear();
                         }
                     }
                   else
-                  { my_big_meal.removeLight (its_tail);
+                  { my_big_meal.removeTail();
                     }
                 grow();
                 }
@@ -253,9 +245,10 @@ public class SnakeController extends SpriteController
             {
             int pick = LSUtils.pickNumber (0, adjacent_lights.size()-1);
             Light l = adjacent_lights.get (pick);
-            if (l.color != Color.BLACK)
+            if (!l.isBlack())
               { Sprite sprite = findSprite (l);
-                if (sprite != null && sprite instanceof Snake)
+                if (sprite != null && sprite.isAlive()
+                      && sprite instanceof Snake)
                   { eating_snake = true;
                     my_big_meal = (Snake) sprite;
                     my_big_meal.setAlive (false);
@@ -277,9 +270,10 @@ public class SnakeController extends SpriteController
                                 ArrayList<Light> adjacent_lights)
             {
             for (Light l : adjacent_lights)
-              { if (l.color != Color.BLACK)
+              { if (!l.isBlack())
                   { Sprite food = findSprite (l);
-                    if (food != null && food instanceof AppleSprite)
+                    if (food != null && food.isAlive()
+                          && food instanceof AppleSprite)
                       { food.setAlive (false);
                         grow();
                         return l;
@@ -293,10 +287,11 @@ public class SnakeController extends SpriteController
   //
     private void explode (ArrayList<Sprite> new_sprites, Light[][][] lights)
         {
-        for (Light l : body)
+        for (int i=0; i<body.size(); i++)
             {
+            Light l = body.get(i);
             StarBurstSprite star = new StarBurstSprite (l, lights);
-            int delay = (int) (1000*Math.random() + 0.5);
+            int delay = (int) (1000*random.nextDouble() + 0.5);
             star.setDelay (delay);
             new_sprites.add (star);
             }
@@ -307,11 +302,7 @@ public class SnakeController extends SpriteController
       //
         public void move()
             {
-            int ix = head.ix;
-            if (ix > 4)  ix = ix - 7;
-            int iy = head.iy;
-            int iz = head.iz;
-            find_adjacent_lights (ix, iy, iz, this);
+            find_adjacent_lights (head, this);
             if (adjacent_lights.size() > 0)
               { Light next_light = eat_something_maybe (adjacent_lights);
                 if (next_light == null)
@@ -330,20 +321,18 @@ public class SnakeController extends SpriteController
         public void nextLight (Light light)
             {
             head.setColor (color);
-            Light tail = body.get(0);
-            removeLight (tail);
+            removeTail();
             
             light.setState (Color.MAGENTA, true);
             head = light;
-            body.add (light);
+            body.addHead (light);
             }
 
-      // ----- removeLight() --------------------
+      // ----- removeTail() ---------------------
       //
-        public void removeLight (Light l)
+        public void removeTail()
             {
-            l.setState (Color.BLACK, false);
-            body.remove (l);
+            body.removeTail().setState (Color.BLACK, false);
             }
         
       // ----- step() ---------------------------
@@ -379,6 +368,7 @@ public class SnakeController extends SpriteController
   //-------------------------------------------------------------------
     
     Light[][][] lights;
+    Adjacency adjacency;
     ArrayList<Sprite>  dead_sprites;
     ArrayList new_sprites;
 
@@ -409,6 +399,7 @@ public class SnakeController extends SpriteController
         {
         super.init (light_array);
         lights = my_light_array.getAllLights();
+        adjacency = my_light_array.getAdjacency (Adjacency.FACES);
 
       // Clean out everything
       //
@@ -429,7 +420,7 @@ public class SnakeController extends SpriteController
         my_sprites.add (new Snake (Color.GREEN));
         my_sprites.add (new Snake (new Color(0xFFAA22))); // Redish orange
         for (int i=0; i<N_APPLES; i++)
-            my_sprites.add (new AppleSprite(pick_random_light()));
+            my_sprites.add (new AppleSprite(pick_random_light(), occupancy));
         }
 
   // ----- clear_lights() ----------------------------------------------
@@ -445,14 +436,13 @@ public class SnakeController extends SpriteController
 
   // ----- find_adjacent_lights() --------------------------------------
   //
-  // Find lights adjacent to a given position that are (1) inside the
+  // Find lights adjacent to a given light that are (1) inside the
   // grid of lights, (2) not already part of the snake, (3) not an
   // adjacent corner or diagonal.
   //
-    private void find_adjacent_lights (int ix, int iy, int iz,
-                                        Sprite self)
+    private void find_adjacent_lights (Light light, Sprite self)
         {
-        findAdjacentLights (ix, iy, iz, lights, self, adjacent_lights);
+        findAdjacentLights (light, adjacency, self, adjacent_lights);
         }
 
   // ----- pick_random_light() -------------------------------------------
@@ -506,7 +496,8 @@ public class SnakeController extends SpriteController
                     t_new = 0;
                     }
                   else if (sprite instanceof AppleSprite)
-                  { new_sprites.add (new AppleSprite(pick_random_light()));
+                  { new_sprites.add (
+                        new AppleSprite(pick_random_light(), occupancy));
                     }
                   else if (sprite instanceof StarBurstSprite)
                   { --burst_count;
@@ -23,11 +23,12 @@ import lightsim.LightArray.Light;
 
 public class SnakeSprite extends Sprite
     {
-  // Container for the body "segments".  The body head is at
-  // the beginning of the list.
+  // Container for the body "segments", kept in a ring buffer.
+  // The body tail is at index 0 and the head at the end.
   //
-    private ArrayList<LightArray.Light> body, adjacent_lights;
-    private ArrayList<Sprite>  fellow_sprites;
+    private ArrayList<LightArray.Light> adjacent_lights;
+    private SnakeBody body;
+    private Occupancy occupancy;
     private LightArray.Light  head;
     private Color  color;
     private int t_next;
@@ -39,13 +40,17 @@ public class SnakeSprite extends Sprite
     private Color[] color_ramp = new Color[1000/eat_dt];
     private static final int EAT_COUNTDOWN = 4;
     private Light[][][] my_lights;
+    private Adjacency adjacency;
 
-    public SnakeSprite (Color color, Light[][][] lights)
+    public SnakeSprite (Color color, Light[][][] lights,
+                        Adjacency adjacency, Occupancy occupancy)
         {
         this.color = color;
         my_lights = lights;
+        this.adjacency = adjacency;
+        this.occupancy = occupancy;
 
-        body = new ArrayList<>();
+        body = new SnakeBody (this, occupancy);
         adjacent_lights = new ArrayList<>();
         build_snake();
         t_next = 0;
@@ -72,23 +77,21 @@ public class SnakeSprite extends Sprite
         }
 
     public boolean died()   { return died; }
-    public ArrayList<LightArray.Light> getBody()   { return body; }
+    public SnakeBody getBody()  { return body; }
     public Color getColor() { return color; }
     public int getSize()    { return body.size(); }
     public boolean isEating()   { return eating_snake; }
-    public void setSprites (ArrayList<Sprite> sprites)
-        { fellow_sprites = sprites; }
 
     public void addLight (LightArray.Light light)
         {
         if (body.isEmpty())
           { head = light;
             light.setState (Color.MAGENTA, true);
-            body.add (light);
+            body.addHead (light);
             }
           else
           { light.setState (color, true);
-            body.add (0, light);
+            body.addTail (light);
             }
         }
 
@@ -131,8 +134,8 @@ public class SnakeSprite extends Sprite
     @Override
     public void clear()
         {
-        for (LightArray.Light l : body)
-            l.setState (Color.BLACK, false);
+        for (int i=0; i<body.size(); i++)
+            body.get(i).setState (Color.BLACK, false);
         body.clear();
         head = null;
         my_big_meal = null;
@@ -141,10 +144,7 @@ public class SnakeSprite extends Sprite
     public LightArray.Light getHead()              { return head; }
     public LightArray.Light getTail()
         {
-        if (!body.isEmpty())
-            return body.get(0);
-          else
-            return null;
+        return body.getTail();
         }
 
     @Override
@@ -156,11 +156,7 @@ public class SnakeSprite extends Sprite
   //
     public Sprite findSprite (LightArray.Light light)
         {
-        for (Sprite sprite : fellow_sprites)
-          { if (sprite.hasLight (light))
-                return sprite;
-            }
-        return null;
+        return occupancy.get (light);
         }
 
   // ----- grow() -------------------------
@@ -168,17 +164,13 @@ public class SnakeSprite extends Sprite
     private void grow()
         {
         LightArray.Light tail = getTail();
-        int ix = tail.ix;
-        if (ix > 4)  ix = ix - 12;
-        int iy = tail.iy;
-        int iz = tail.iz;
-        SpriteController.findAdjacentLights (ix, iy, iz, my_lights, this,
+        SpriteController.findAdjacentLights (tail, adjacency, this,
                                adjacent_lights);
         if (adjacent_lights.size() > 0)
           { int pick = LSUtils.pickNumber (0, adjacent_lights.size()-1);
             LightArray.Light new_tail = adjacent_lights.get (pick);
             new_tail.setState (color, true);
-            body.add (0, new_tail);
+            body.addTail (new_tail);
             }
           else
           { died = true;
@@ -230,16 +222,15 @@ public class SnakeSprite extends Sprite
                     new_head.setState (my_big_meal.getHead());
                     my_big_meal.head.setState (Color.BLACK, false);
                     my_big_meal.head = new_head;
-                    my_big_meal.body.remove (n-1);
+                    my_big_meal.body.removeHead();
                     }
                   else
                   { my_big_meal.head.setState (Color.BLACK, false);
-                    while (my_big_meal.getSize() > 0)
-                        my_big_meal.body.remove(0);
+                    my_big_meal.body.clear();
                     }
                 }
               else
-              { my_big_meal.removeLight (its_tail);
+              { my_big_meal.removeTail();
                 }
             grow();
             }
@@ -261,9 +252,10 @@ public class SnakeSprite extends Sprite
         {
         int pick = LSUtils.pickNumber (0, adjacent_lights.size()-1);
         LightArray.Light l = adjacent_lights.get (pick);
-        if (l.color != Color.BLACK)
+        if (!l.isBlack())
           { Sprite sprite = findSprite (l);
-            if (sprite != null && sprite instanceof SnakeSprite)
+            if (sprite != null && sprite.isAlive()
+                  && sprite instanceof SnakeSprite)
               { eating_snake = true;
                 my_big_meal = (SnakeSprite) sprite;
                 my_big_meal.setAlive (false);
@@ -285,9 +277,10 @@ public class SnakeSprite extends Sprite
                             ArrayList<LightArray.Light> adjacent_lights)
             {
             for (LightArray.Light l : adjacent_lights)
-              { if (l.color != Color.BLACK)
+              { if (!l.isBlack())
                   { Sprite food = findSprite (l);
-                    if (food != null && food instanceof AppleSprite)
+                    if (food != null && food.isAlive()
+                          && food instanceof AppleSprite)
                       { food.setAlive (false);
                         grow();
                         return l;
@@ -301,11 +294,12 @@ public class SnakeSprite extends Sprite
   //
     public void explode (ArrayList<Sprite> new_sprites)
         {
-        for (LightArray.Light l : body)
+        for (int i=0; i<body.size(); i++)
             {
+            LightArray.Light l = body.get(i);
             StarBurstSprite star = new StarBurstSprite (l, my_lights);
             l.setColor (Color.WHITE);
-            int delay = (int) (1000*Math.random() + 0.5);
+            int delay = (int) (1000*LSUtils.random.nextDouble() + 0.5);
             star.setDelay (delay);
             new_sprites.add (star);
             }
@@ -316,12 +310,8 @@ public class SnakeSprite extends Sprite
   //
     public void move()
         {
-        int ix = head.ix;
-        if (ix > 4)  ix = ix - 12;
-        int iy = head.iy;
-        int iz = head.iz;
-        SpriteController.findAdjacentLights (ix, iy, iz,
-                               my_lights, this, adjacent_lights);
+        SpriteController.findAdjacentLights (head, adjacency, this,
+                               adjacent_lights);
         if (adjacent_lights.size() > 0)
           { LightArray.Light next_light
                            = eat_something_maybe (adjacent_lights);
@@ -341,20 +331,18 @@ public class SnakeSprite extends Sprite
     public void nextLight (LightArray.Light light)
         {
         head.setColor (color);
-        LightArray.Light tail = body.get(0);
-        removeLight (tail);
+        removeTail();
 
         light.setState (Color.MAGENTA, true);
         head = light;
-        body.add (light);
+        body.addHead (light);
         }
 
-  // ----- removeLight() --------------------
+  // ----- removeTail() ---------------------
   //
-    public void removeLight (LightArray.Light l)
+    public void removeTail()
         {
-        l.setState (Color.BLACK, false);
-        body.remove (l);
+        body.removeTail().setState (Color.BLACK, false);
         }
 
   // ----- step() ---------------------------
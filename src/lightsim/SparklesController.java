@@ -2,7 +2,6 @@ package lightsim;
 
 import java.awt.Color;
 import java.util.Random;
-import lightsim.LightArray.Light;
 
 public class SparklesController extends LightController {
 
@@ -21,7 +20,8 @@ public class SparklesController extends LightController {
     final double colorWheelDuration = 60;  // Seconds to progress through full wheel
     final double colorWheelVelocity = 0.1;  // Rate at which we move along the color wheel.
 
-    Animation animations[] = new Animation[500];
+    // One fade per sparkling light, run without allocating.
+    AnimationScheduler sparkles;
 
     public SparklesController() {
     }
@@ -36,6 +36,7 @@ public class SparklesController extends LightController {
         lastStepTime = 0;
         sparklesToAdd = 0;
         colorWheelPos = 0;
+        sparkles = new AnimationScheduler(lightArray);
         super.init(lightArray);
     }
 
@@ -69,10 +70,11 @@ public class SparklesController extends LightController {
             colorWheelPos = 0;
         }
         int colorWheelCenter = (int)Math.round(colorWheelPos * 255);
+        Palette palette = Palettes.choose(Palettes.WHEEL);
 
         while (sparklesToAdd >= 1) {
             // Pick a random light for the sparkle.
-            int lightIndex = random.nextInt(500);
+            int lightIndex = random.nextInt(my_light_array.getLightCount());
 
 
             int colorIndex = colorWheelCenter - COLOR_WHEEL_RANGE / 2 +
@@ -80,84 +82,15 @@ public class SparklesController extends LightController {
             colorIndex = (colorIndex + 255) % 255;
             double duration = randomDoubleInRange(FADE_OUT_TIME_MIN, FADE_OUT_TIME_MAX);
 
-            Animation anim = new SparkleAnimation(lightIndex, colorWheel(colorIndex));
-            anim.setDuration(duration);
-            anim.start(time);
-
-            if (animations[lightIndex] != null) {
-                removeAnimation(animations[lightIndex]);
-            }
-            animations[lightIndex] = anim;
-            addAnimation(anim);
+            // Fade out from the color. Replaces any sparkle already on the light.
+            sparkles.start(lightIndex, palette.sample((colorIndex + 0.5) / 255), 0, time, duration,
+                           AnimationScheduler.LINEAR);
 
             sparklesToAdd -= 1;
         }
 
-        updateAnimations(time);
+        sparkles.update(time);
         return true;
     }
 
-
-
-    // Returns a color from a rainbow wheel.
-    private Color colorWheel(int i) {
-        int r, g, b;
-        if (i > 255) {
-            return Color.black;
-        }
-        if (i < 85) {
-            r = i * 3;
-            g = 255 - (i * 3);
-            b = 255;
-        } else if (i < 170) {
-            r = 255;
-            g = (i - 85) * 3;
-            b = 255 - (i - 85) * 3;
-        } else {
-            r = 255 - (i - 170) * 3;
-            g = 255;
-            b = (i - 170) * 3;
-        }
-//        if (r < 0 || r > 255 || g < 0 || g > 255 || b < 0 || b > 255) {
-//            Console.log("bad color");
-//        }
-//        Console.log("Starting light with color: <%d, %d, %d>", r, g, b);
-        return new Color(r, g, b);
-    }
-
-    class SparkleAnimation extends Animation {
-        int lightIndex;
-        Light light;
-        float initialColorComponents[] = new float[3];
-
-        public SparkleAnimation(int lightIndex, Color initialColor) {
-            this.lightIndex = lightIndex;
-            light = my_light_array.getLights().get(lightIndex);
-            initialColor.getRGBColorComponents(initialColorComponents);
-        }
-
-        @Override
-        public void update(double t) {
-
-            float fadeAmount = (float)(1 - t);
-
-            Color currentColor = new Color(
-                initialColorComponents[0] * fadeAmount,
-                initialColorComponents[1] * fadeAmount,
-                initialColorComponents[2] * fadeAmount);
-
-//            Console.log("Setting color of light <%d, %d, %d> to <%d, %d, %d>",
-//                        light.ix, light.iy, light.iz,
-//                        currentColor.getRed(), currentColor.getGreen(), currentColor.getBlue());
-            light.setColor(currentColor);
-
-        }
-
-        @Override
-        public void onComplete() {
-            animations[lightIndex] = null;
-        }
-    }
-
-
 }
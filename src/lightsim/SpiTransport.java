@@ -0,0 +1,21 @@
+package lightsim;
+
+import java.io.IOException;
+
+/**
+ * Moves encoded frame data to the light controllers. Each channel is
+ * wired to one microcontroller.
+ */
+public interface SpiTransport {
+
+    /**
+     * Sends the first length bytes of data on the given channel. Like
+     * wiringPiSPIDataRW, a transport may overwrite data with the bytes it
+     * reads back, so callers must refill the buffer before reusing it.
+     * Different channels may be written concurrently from different
+     * threads; writes to any one channel are never concurrent.
+     */
+    public void write(int channel, byte[] data, int length) throws IOException;
+
+    public String name();
+}
@@ -1,90 +1,356 @@
 package lightsim;
 
-import java.awt.Color;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.ArrayList;
-import lightsim.LightArray.Light;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SpiWriter {
     
     static final boolean ENABLE_SLOW_MODE = false;
     static final int SPI_RATE = (int)(ENABLE_SLOW_MODE ? 500e3 : 2000e3);
     
-    // Dynamically-loaded Spi.wiringPiSPIDataRW method.
-    Method dataRwMethod;
+    static final byte START_SEQUENCE[] = {0x01, 0x01, 0x01, 0x01};
+    static final double DEFAULT_KEEP_ALIVE_SECONDS = 1.0;
+    // How long writeFrame() waits for the channel workers before giving
+    // up on them and starting new ones.
+    static final long FRAME_TIMEOUT_MILLIS = 1000;
+
+    SpiTransport transport;
+
+    // Light index for each position on the wire, per channel, from the
+    // installation's geometry. Frames are indexed by Light.index, so this
+    // is all the encoder needs to know about the wiring.
+    final int numChannels;
+    final int wireOrder[][];
+
+    // Wire buffers, allocated once and reused for every frame.
+    // wiringPiSPIDataRW overwrites what it sends with what it reads back,
+    // so these are refilled before every write rather than copied.
+    final byte channelData[][];
+    final byte startSequence[][];
+
+    // Each channel is encoded and sent by its own worker so that the two
+    // transfers overlap. The calling thread meets the workers at
+    // frameStart to hand over a frame and at frameDone to wait for them.
+    // If a worker dies or hangs, the barriers are broken and a fresh set
+    // of workers is started once the old ones have all exited.
+    ChannelWorker workers[];
+    Thread workerThreads[];
+    CyclicBarrier frameStart;
+    CyclicBarrier frameDone;
+    int pendingFrame[];
+    long retiredSent;
+    long retiredSkipped;
+
+    // A channel whose encoded data matches what it last sent is skipped,
+    // unless keepAliveNanos have passed since it was last sent. Zero
+    // sends every frame.
+    volatile long keepAliveNanos = (long)(DEFAULT_KEEP_ALIVE_SECONDS * 1e9);
+    final byte lastSent[][];
+    // Frames still to be sent on every channel regardless; see
+    // resetDeltas(). pendingForce tells the workers about this frame.
+    final AtomicInteger forcedFrames = new AtomicInteger();
+    boolean pendingForce;
+
+    // Maps each 8-bit color component to the byte put on the wire, with
+    // brightness, gamma and the 0x01 escape already applied. Replaced
+    // wholesale when the settings change; workers read it once per frame.
+    volatile byte levels[];
+    double brightness = 1.0;
+    double gamma = 1.0;
     
-    public static SpiWriter getWriter() {
-        Method dataRwMethod;
+    // Returns a writer that talks to the Pi's SPI hardware through Pi4J, or
+    // null if Pi4J isn't available.
+    public static SpiWriter getWriter(LightArray lights) {
+        SpiTransport transport;
         try {
-            URL classLoaderUrls[] = new URL[]{new URL("file:///opt/pi4j/lib/pi4j-core.jar")};
-            
-            URLClassLoader urlClassLoader = new URLClassLoader(classLoaderUrls, SpiWriter.class.getClassLoader());
-            Class spiClass = urlClassLoader.loadClass("com.pi4j.wiringpi.Spi");
-            Method setupModeMethod = spiClass.getMethod("wiringPiSPISetupMode", int.class, int.class, int.class);
-            dataRwMethod = spiClass.getMethod("wiringPiSPIDataRW", int.class, byte[].class, int.class);
-            
-            // Open both SPI channels. One channel is dedicated to each microcontroller.
-            setupModeMethod.invoke(null, 0, SPI_RATE, 0);
-            setupModeMethod.invoke(null, 1, SPI_RATE, 0);
+            // Open the SPI channels. One channel is dedicated to each microcontroller.
+            transport = Pi4jSpiTransport.open(lights.getChannelCount(), SPI_RATE);
         } catch (Exception e) {
             Console.log("Error initializing SpiWriter: " + e);
             return null;
         }
-        return new SpiWriter(dataRwMethod);
+        return new SpiWriter(transport, lights);
+    }
+
+    public static SpiWriter getWriter(LightArray lights, SpiTransport transport) {
+        return new SpiWriter(transport, lights);
     }
     
-    private SpiWriter(Method dataRwMethod) {
-        this.dataRwMethod = dataRwMethod;
+    private SpiWriter(SpiTransport transport, LightArray lights) {
+        this.transport = transport;
+
+        numChannels = lights.getChannelCount();
+        wireOrder = new int[numChannels][];
+        channelData = new byte[numChannels][];
+        lastSent = new byte[numChannels][];
+        startSequence = new byte[numChannels][START_SEQUENCE.length];
+        for (int channel = 0; channel < numChannels; channel++) {
+            wireOrder[channel] = lights.getWireOrder(channel);
+            channelData[channel] = new byte[wireOrder[channel].length * 3];
+            lastSent[channel] = new byte[wireOrder[channel].length * 3];
+        }
+        levels = buildLevels(brightness, gamma);
     };
-    
-    private SpiWriter() {};
-    
-    public void writeLights(LightArray lights) {
-        Light strings[][] = lights.getStrings();
-        
-        int numBytesPerSide = 250 * 3;
-        byte color_data_left[] = new byte[numBytesPerSide];
-        byte color_data_right[] = new byte[numBytesPerSide];
-        
-        int count = 0;
-        for (int sideNum = 0; sideNum < 2; sideNum++) {
-            int baseStringIndex = sideNum * 25;
-            int writeIndex = 0;
-            byte array_to_write[] = sideNum == 0 ? color_data_left : color_data_right;
-            for (int stringIndex = 0; stringIndex < 25; stringIndex++) {
-                for (Light light : strings[baseStringIndex + stringIndex]) {
-                    Color color = light.isOn() ? light.getColor() : Color.BLACK;
-                    array_to_write[writeIndex] = oneToZero((byte)color.getRed());
-                    array_to_write[writeIndex + 1] = oneToZero((byte)color.getGreen());
-                    array_to_write[writeIndex + 2] = oneToZero((byte)color.getBlue());
-                    writeIndex += 3;
-              }
+
+    public SpiTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Sets how often an unchanged channel is resent anyway, so a controller
+     * that has lost a frame or been reset picks the lights back up.
+     * Zero disables skipping.
+     */
+    public void setKeepAliveInterval(double seconds) {
+        if (!(seconds >= 0) || Double.isInfinite(seconds)) {
+            throw new IllegalArgumentException("Keep-alive interval must be 0 or more seconds: " + seconds);
+        }
+        keepAliveNanos = (long)(seconds * 1e9);
+    }
+
+    public double getKeepAliveInterval() {
+        return keepAliveNanos / 1e9;
+    }
+
+    /**
+     * Makes the next frame written go out on every channel, even where
+     * it matches what was last sent. Each call forces one more frame, so
+     * a burst of frames that must all reach the lights, like the black
+     * frames sent when the show stops, can call this before each one.
+     */
+    public void resetDeltas() {
+        forcedFrames.incrementAndGet();
+    }
+
+    /** Scales every color component sent to the lights, from 0 to 1. */
+    public synchronized void setBrightness(double brightness) {
+        if (Double.isNaN(brightness)) {
+            throw new IllegalArgumentException("Brightness must be a number");
+        }
+        this.brightness = Math.max(0, Math.min(1, brightness));
+        levels = buildLevels(this.brightness, gamma);
+    }
+
+    public synchronized double getBrightness() {
+        return brightness;
+    }
+
+    /**
+     * Sets the gamma curve applied to each color component. 1 sends colors
+     * unchanged; larger values darken the low end to make fades look
+     * even on the LEDs.
+     */
+    public synchronized void setGamma(double gamma) {
+        if (!(gamma > 0) || Double.isInfinite(gamma)) {
+            throw new IllegalArgumentException("Gamma must be positive and finite: " + gamma);
+        }
+        this.gamma = gamma;
+        levels = buildLevels(brightness, this.gamma);
+    }
+
+    public synchronized double getGamma() {
+        return gamma;
+    }
+
+    static byte[] buildLevels(double brightness, double gamma) {
+        byte table[] = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            double level = 255 * brightness * Math.pow(i / 255.0, gamma);
+            table[i] = oneToZero((byte)Math.round(level));
+        }
+        return table;
+    }
+
+    /** Total channel transfers sent since the writer was created. */
+    public long getSentTransfers() {
+        long total = retiredSent;
+        if (workers != null) {
+            for (ChannelWorker worker : workers) {
+                total += worker.sent;
             }
         }
+        return total;
+    }
 
+    /** Total channel transfers skipped because the data hadn't changed. */
+    public long getSkippedTransfers() {
+        long total = retiredSkipped;
+        if (workers != null) {
+            for (ChannelWorker worker : workers) {
+                total += worker.skipped;
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Sends a frame on all channels at once and returns when every channel
+     * has finished, so a frame takes as long as the slowest channel rather
+     * than the sum of them. Must only be called from one thread at a time.
+     */
+    public void writeFrame(Frame frame) {
+        if (workers == null && !startWorkers()) {
+            return;
+        }
+        pendingFrame = frame.getColorData();
+        pendingForce = forcedFrames.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0;
         try {
-            byte start_sequence[] = {0x01, 0x01, 0x01, 0x01};
+            frameStart.await(FRAME_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            frameDone.await(FRAME_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            stopWorkers();
+            Thread.currentThread().interrupt();
+            return;
+        } catch (BrokenBarrierException | TimeoutException e) {
+            Console.log("SPI channel workers stopped (%s); restarting them.", e);
+            stopWorkers();
+            return;
+        }
+        for (ChannelWorker worker : workers) {
+            if (worker.error != null) {
+                Console.log("Error writing SPI data on channel %d: %s", worker.channel, worker.error);
+                worker.error = null;
+            }
+        }
+    }
+
+    // Returns false, sending nothing, while a worker from before is still
+    // stuck in the transport, since only one thread may write a channel.
+    private boolean startWorkers() {
+        if (workerThreads != null) {
+            for (Thread thread : workerThreads) {
+                if (thread.isAlive()) {
+                    return false;
+                }
+            }
+        }
+        frameStart = new CyclicBarrier(numChannels + 1);
+        frameDone = new CyclicBarrier(numChannels + 1);
+        workers = new ChannelWorker[numChannels];
+        workerThreads = new Thread[numChannels];
+        for (int channel = 0; channel < numChannels; channel++) {
+            workers[channel] = new ChannelWorker(channel, frameStart, frameDone);
+            Thread thread = new Thread(workers[channel], "SPI channel " + channel);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            thread.start();
+            workerThreads[channel] = thread;
+        }
+        return true;
+    }
+
+    // Breaks the barriers, so every worker still waiting on them exits,
+    // and leaves writeFrame() to start new ones. A worker stuck in the
+    // transport exits once it gets back to frameDone.
+    private void stopWorkers() {
+        frameStart.reset();
+        frameDone.reset();
+        retiredSent = getSentTransfers();
+        retiredSkipped = getSkippedTransfers();
+        workers = null;
+    }
+
+    private class ChannelWorker implements Runnable {
+        final int channel;
+        final CyclicBarrier frameStart;
+        final CyclicBarrier frameDone;
+        Exception error;
+        boolean everSent;
+        long lastSentNanos;
+        volatile long sent;
+        volatile long skipped;
+
+        ChannelWorker(int channel, CyclicBarrier frameStart, CyclicBarrier frameDone) {
+            this.channel = channel;
+            this.frameStart = frameStart;
+            this.frameDone = frameDone;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    frameStart.await();
+                    try {
+                        encode(channel, pendingFrame);
+                        if (needsSending()) {
+                            // The transport may overwrite channelData, so
+                            // compare against a copy of what went out,
+                            // taken first but trusted only once the send
+                            // has succeeded.
+                            System.arraycopy(channelData[channel], 0, lastSent[channel], 0, lastSent[channel].length);
+                            everSent = false;
+                            send(channel);
+                            lastSentNanos = System.nanoTime();
+                            everSent = true;
+                            sent++;
+                        } else {
+                            skipped++;
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // Reported by writeFrame(); the next frame tries again.
+                        error = e;
+                    }
+                    // Timed, so that a worker that only gets here after
+                    // writeFrame() has given up on it still exits.
+                    frameDone.await(FRAME_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                Console.log("SPI channel %d worker exiting: %s", channel, e);
+            } finally {
+                // Don't leave writeFrame() or the other workers waiting on
+                // a worker that is gone.
+                frameStart.reset();
+                frameDone.reset();
+            }
+        }
+
+        private boolean needsSending() {
+            long keepAlive = keepAliveNanos;
+            return pendingForce || !everSent || keepAlive <= 0
+                || System.nanoTime() - lastSentNanos >= keepAlive
+                || !Arrays.equals(channelData[channel], lastSent[channel]);
+        }
+    }
 
-            // Write left array.
-            byte start_sequence_to_send[] = start_sequence.clone();  // Data is mutated when sent so send a copy.
-            dataRwMethod.invoke(null, 0, start_sequence_to_send, start_sequence_to_send.length);
+    private void send(int channel) throws IOException {
+        // Data is mutated when sent so refill the start sequence.
+        byte start[] = startSequence[channel];
+        System.arraycopy(START_SEQUENCE, 0, start, 0, start.length);
+        transport.write(channel, start, start.length);
 
-            // System.out.println("Sending " + color_data_left.length + " bytes of left color data: " +
-            //     bytesToHex(color_data_right));
-            dataRwMethod.invoke(null, 0, color_data_left, color_data_left.length);
+        // System.out.println("Sending " + channelData[channel].length + " bytes of color data: " +
+        //     bytesToHex(channelData[channel]));
+        byte data[] = channelData[channel];
+        transport.write(channel, data, data.length);
+    }
 
-            // Write right array.
-            start_sequence_to_send = start_sequence.clone();
-            dataRwMethod.invoke(null, 1, start_sequence_to_send, start_sequence_to_send.length);
+    // Encode a frame of packed 0xRRGGBB colors into the wire buffers.
+    void encode(int rgbData[]) {
+        for (int channel = 0; channel < numChannels; channel++) {
+            encode(channel, rgbData);
+        }
+    }
 
-            // System.out.println("Sending " + color_data_left.length + " bytes of right color data: " +
-            //     bytesToHex(color_data_right));
-            dataRwMethod.invoke(null, 1, color_data_right, color_data_right.length);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            Console.log("Error invoking SPIDataRW: " + e);
+    // One pass down the channel's wire order, with no per-light calls or
+    // branches: gather the light's packed color, then map each component
+    // through the level table straight into the wire buffer.
+    void encode(int channel, int rgbData[]) {
+        int order[] = wireOrder[channel];
+        byte data[] = channelData[channel];
+        byte table[] = levels;
+        int writeIndex = 0;
+        for (int i = 0; i < order.length; i++) {
+            int rgb = rgbData[order[i]];
+            data[writeIndex] = table[(rgb >> 16) & 0xFF];
+            data[writeIndex + 1] = table[(rgb >> 8) & 0xFF];
+            data[writeIndex + 2] = table[rgb & 0xFF];
+            writeIndex += 3;
         }
     }
 
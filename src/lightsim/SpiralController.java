@@ -153,13 +153,14 @@ public class SpiralController extends LightController
         nx = 5; ny = 10; nz = 5;
         left_lights = new Light[ny][nx][nz];
         right_lights = new Light[ny][nx][nz];
-        for (Light l : my_light_array.getLights())
-            {
-            if (l.ix < 5)
-                left_lights[l.iy][l.ix][l.iz] = l;
-              else
-                right_lights[l.iy][l.ix-12][l.iz] = l;
-            }
+        Light[][][] left = my_light_array.getLeftLights(),
+                    right = my_light_array.getRightLights();
+        for (int x=0; x<nx; x++)
+            for (int y=0; y<ny; y++)
+                for (int z=0; z<nz; z++)
+                  { left_lights[y][x][z] = left[x][y][z];
+                    right_lights[y][x][z] = right[x][y][z];
+                    }
         my_light_array.reset ();
 
         iy = 0;
@@ -170,6 +171,15 @@ public class SpiralController extends LightController
   //
     public String name()    { return "Spiral"; }
 
+  // ----- bakeCycleSeconds() -------------------------------------------
+  //
+  // Sixteen steps per layer, one step per frame, ten layers.
+  //
+    public double bakeCycleSeconds ()
+        {
+        return 16 * 10 / LeanExec.FRAMERATE_HZ;
+        }
+
   // ----- step() -----------------------------------------------------
   //
     public boolean step (int clock)
@@ -214,11 +224,11 @@ public class SpiralController extends LightController
                 Light l = layer[4-ix][4-iz];
                 if ((mask & row_pattern) !=  0)
                     {
-                    l.color = Color.GREEN;
+                    l.setColor (Color.GREEN);
                     }
                   else
                     {
-                    l.color = Color.BLACK;
+                    l.setColor (Color.BLACK);
                     }
                 mask = mask << 1;
                 }
@@ -238,11 +248,11 @@ public class SpiralController extends LightController
                 Light l = layer[ix][iz];
                 if ((mask & row_pattern) !=  0)
                     {
-                    l.color = Color.CYAN;
+                    l.setColor (Color.CYAN);
                     }
                   else
                     {
-                    l.color = Color.BLACK;
+                    l.setColor (Color.BLACK);
                     }
                 mask = mask >>> 1;
                 }
@@ -24,6 +24,7 @@ public class Sprite
 
     public void clear()                     { }
     public boolean hasLight (Light l)       { return false; }
+    public boolean isAlive()                { return alive; }
     public void setAlive (boolean value)    { alive = value; }
     public boolean step (int clock)         { return alive; }
 
@@ -28,6 +28,7 @@ public class SpriteController extends LightController
     {
     protected ArrayList<Light>  adjacent_lights;
     protected ArrayList<Sprite>  my_sprites;
+    protected Occupancy  occupancy;
 
   // ----- constructor -----------------------------------------------
   //
@@ -49,6 +50,7 @@ public class SpriteController extends LightController
         {
         super.init (light_array);
         my_light_array.fill(Color.BLACK);
+        occupancy = new Occupancy (my_light_array);
         }
 
   // ----- step() ------------------------------------------------------
@@ -61,83 +63,43 @@ public class SpriteController extends LightController
         }
 
 
-      // ----- find_adjacent_lights() --------------------------------------
+  // ----- findAdjacentLights() ---------------------------------------
   //
-  // Find lights adjacent to a given position that are (1) inside the
+  // Find lights adjacent to a given light that are (1) inside the
   // grid of lights, (2) not already part of the snake, (3) not an
-  // adjacent corner or diagonal.
+  // adjacent corner or diagonal.  The first two come from the grid's
+  // Adjacency.FACES table, which LightArray.getAdjacency() builds once,
+  // so this is a walk along one range of ints.
   //
-    private static final boolean[][][] NOT_OK =
-      { { { true,  true, true  },
-          { true, false, true },
-          { true,  true, true  } },
-        { { true, false, true },
-          { false, false, false },
-          { true, false, true } },
-        { { true,  true, true  },
-          { true, false, true },
-          { true,  true, true  } }
-      };
-
-    public static void findAdjacentLights (int ix, int iy, int iz,
-                                        Light[][][] lights, Sprite self,
+    public static void findAdjacentLights (Light light, Adjacency adjacency,
+                                        Sprite self,
                                         ArrayList<Light> adjacent_lights)
         {
         adjacent_lights.clear();
 
-        int nx = lights.length;
-        int ny = lights[0].length;
-        int nz = lights[0][0].length;
-        int nxm1 = nx - 1;
-        int nym1 = ny - 1;
-        int nzm1 = nz - 1;
-
-        for (int dx=-1; dx<=1; dx++)
-            for (int dy=-1; dy<=1; dy++)
-                for (int dz=-1; dz<=1; dz++)
-                    {
-                  // Exclude the original position
-                  //
-                    if (dx==0 && dy==0 && dz==0)
-                        continue;
-
-                  // Exclude diagnonals and corners.
-                  //
-                    if (NOT_OK[dx+1][dy+1][dz+1])
-                        continue;
-
-                  // Calculcate a set of adjacent coordinates and
-                  // check that they are within the light grid.
-                  //
-                    int x = ix+dx;
-                    if (x < 0 || nxm1 < x)  continue;
-                    int y = iy+dy;
-                    if (y < 0 || nym1 < y)  continue;
-                    int z=iz+dz;
-                    if (z < 0 || nzm1 < z)  continue;
-
-                  // Check that the position is not part of the
-                  // snake or any other object.
-                  //
-                    LightArray.Light adjacent_light = lights[x][y][z];
-                    if (    (self != null && !self.hasLight(adjacent_light))
-                         || adjacent_light.color == Color.BLACK
-                         )
-                        adjacent_lights.add (adjacent_light);
-                    }
+        int end = adjacency.end (light.index);
+        for (int k=adjacency.begin (light.index); k<end; k++)
+            {
+          // Check that the position is not part of the
+          // snake or any other object.
+          //
+            Light adjacent_light = adjacency.neighborLight (k);
+            if (    (self != null && !self.hasLight(adjacent_light))
+                 || adjacent_light.isBlack()
+                 )
+                adjacent_lights.add (adjacent_light);
+            }
         }
 
   // ----- findSprite() ------------------------------------------------
   //
-  // Find the sprite that has the given light.
+  // Find the sprite that has the given light.  Sprites keep the
+  // occupancy up to date as they move, so this is a lookup rather than
+  // a search of every sprite.
   //
     public Sprite findSprite (LightArray.Light light)
         {
-        for (Sprite sprite : my_sprites)
-          { if (sprite.hasLight (light))
-                return sprite;
-            }
-        return null;
+        return occupancy.get (light);
         }
 
   // ----- pickRandomLight() -------------------------------------------
@@ -157,7 +119,7 @@ public class SpriteController extends LightController
             int iy = LSUtils.pickNumber (0, nym1);
             int iz = LSUtils.pickNumber (0, nzm1);
             light = lights[ix][iy][iz];
-            found_light = light.color == Color.BLACK;
+            found_light = light.isBlack();
             }
         return light;
         }
@@ -176,7 +138,7 @@ public class SpriteController extends LightController
             for (int iy=0; iy<ny; iy++)
                 for (int iz=0; iz<nz; iz++)
           { Light l = lights[ix][iy][iz];
-            l.color = Color.BLACK;
+            l.setColor (Color.BLACK);
             }
         }
 
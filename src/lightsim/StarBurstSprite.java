@@ -53,12 +53,13 @@ public class StarBurstSprite extends Sprite
         step_limit = 2;
 
         colors = new Color[step_limit];
+        Color color = light.getColor();
         for (int i=0; i<step_limit; i++)
           { float factor = 1.0f - 0.25f*(i+1);
             colors[i] =
-                new Color (factor*light.color.getRed()/255.0f,
-                           factor*light.color.getGreen()/255.0f,
-                           factor*light.color.getBlue()/255.0f);
+                new Color (factor*color.getRed()/255.0f,
+                           factor*color.getGreen()/255.0f,
+                           factor*color.getBlue()/255.0f);
             }
         }
 
@@ -99,10 +100,7 @@ public class StarBurstSprite extends Sprite
                             int z = zc + iz;
                             if (in_bounds (x, y, z))
                               { Light l = lights[x][y][z];
-                                int rgb = l.color.getRGB();
-                                rgb = rgb ^ old_rgb;
-                                lights[x][y][z].setState (
-                                            new Color(rgb), true);
+                                l.setRGB (l.getRGB() ^ old_rgb);
                                 }
                             }
                 }
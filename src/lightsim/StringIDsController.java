@@ -39,6 +39,13 @@ public class StringIDsController extends LightController
     @Override
     public String name()    { return "String IDs"; }
 
+  // ----- bakeCycleSeconds() -------------------------------------------
+  //
+  // The pattern never changes, so a single frame will do.
+  //
+    @Override
+    public double bakeCycleSeconds()    { return 1 / LeanExec.FRAMERATE_HZ; }
+
   // ----- init() ------------------------------------------------------
   //
     @Override
@@ -48,6 +48,28 @@ public class TimesSquareController extends LightController
   //
     public String name()    { return "Times Square"; }
 
+  // ----- bakeCycleSeconds() -----------------------------------------
+  //
+  // The message and the rainbow come back into step after lcm(message
+  // length, rainbow length) characters, each of which scrolls by its
+  // width plus one column of space, dt ms per column.
+  //
+    public double bakeCycleSeconds ()
+        {
+        int n_chars = HELLO_WORLD.length();
+        int n_colors = RAINBOW.length;
+        int gcd = n_chars, b = n_colors;
+        while (b != 0)
+          { int t = gcd % b; gcd = b; b = t;
+            }
+        int n_passes = n_colors / gcd;
+
+        int n_columns = 0;
+        for (int i=0; i<n_chars; i++)
+            n_columns += my_font.getCharWidth (HELLO_WORLD.charAt (i)) + 1;
+        return n_passes * n_columns * dt / 1000.0;
+        }
+
   // ----- init() -----------------------------------------------------
   //
   // Organize the lights into arrays that facilitate the manipulation
@@ -63,30 +85,30 @@ public class TimesSquareController extends LightController
             nxm1 = nx - 1;
 
             lights = new Light[nx][ny];
-            for (Light l : my_light_array.getLights())
-                {
-                if (l.ix == 0)
-                  { lights[l.iz+12][l.iy] = l;
-                    }
-                  else if (l.ix == 16 && l.iz<4)
-                  { lights[3-l.iz][l.iy] = l;
-                    }
-                  else if (l.ix == 16 && l.iz == 4)
-                  { lights[25][l.iy] = l;
-                    }
-                  else if (l.iz == 0 && l.ix >= 12)
-                  { lights[19-l.ix][l.iy] = l;
-                    }
-                  else if (l.iz == 0)
-                  { lights[12-l.ix][l.iy] = l;
-                    }
-                  else if (l.iz == 4 && l.ix <= 4)
-                  { lights[16+l.ix][l.iy] = l;
-                    }
-                  else if (l.iz == 4)
-                  { lights[9+l.ix][l.iy] = l;
-                    }
-                }
+          // The columns run around the outside of both cubes, in
+          // fixture coordinates.
+          //
+            Light[][][] left = my_light_array.getLeftLights(),
+                        right = my_light_array.getRightLights();
+            for (int x=0; x<5; x++)
+                for (int y=0; y<ny; y++)
+                    for (int z=0; z<5; z++)
+                      { if (x == 0)
+                            lights[z+12][y] = left[x][y][z];
+                          else if (z == 0)
+                            lights[12-x][y] = left[x][y][z];
+                          else if (z == 4)
+                            lights[16+x][y] = left[x][y][z];
+
+                        if (x == 4 && z < 4)
+                            lights[3-z][y] = right[x][y][z];
+                          else if (x == 4)
+                            lights[25][y] = right[x][y][z];
+                          else if (z == 0)
+                            lights[7-x][y] = right[x][y][z];
+                          else if (z == 4)
+                            lights[21+x][y] = right[x][y][z];
+                        }
             }
 
         my_light_array.reset();
@@ -113,7 +135,7 @@ public class TimesSquareController extends LightController
                 for (int iy=0; iy<ny; iy++)
                   { Light l_to = lights[ix][iy];
                     Light l_from = lights[ix+1][iy];
-                    l_to.color = l_from.color;
+                    l_to.setState (l_from);
                     }
 
           // Set the rightmost column.  If we're starting a new
@@ -135,7 +157,7 @@ public class TimesSquareController extends LightController
               // Draw a single column of space between characters.
               //
                 for (int iy=0; iy<ny; iy++)
-                  { lights[nxm1][iy].color = Color.BLACK;
+                  { lights[nxm1][iy].setColor (Color.BLACK);
                     }
                 }
               else
@@ -0,0 +1,19 @@
+package lightsim;
+
+/**
+ * An AnimationClock that only moves when told to, for running controllers
+ * faster than real time and getting the same timestamps on every run.
+ */
+public class VirtualClock extends AnimationClock {
+    long nanos;
+
+    /** Moves the clock forward; the next tick() sees the new time. */
+    public synchronized void advance(long deltaNanos) {
+        nanos += deltaNanos;
+    }
+
+    @Override
+    protected long nanoTime() {
+        return nanos;
+    }
+}
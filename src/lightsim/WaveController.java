@@ -1,7 +1,6 @@
 package lightsim;
 
-import java.awt.Color;
-import java.util.Random;
+import java.util.Arrays;
 import lightsim.LightArray.Light;
 
 public class WaveController extends LightController {
@@ -33,26 +32,63 @@ public class WaveController extends LightController {
         return "Wave";
     }
     
+    // The wave's height depends only on a light's x and z, so it is
+    // evaluated once per column of lights. Lights are grouped by column:
+    // column c holds columnLights[columnStart[c]] up to
+    // columnLights[columnStart[c + 1]], with their y in columnY.
+    int columnX[], columnZ[], columnStart[];
+    int columnLights[];
+    double columnY[];
+    double xCenter[], zCenter[];
+    int store[];
+
     @Override
     public void init(LightArray lightArray) {
         super.init(lightArray);
+        store = my_light_array.getColorData();
+        int width = my_light_array.getDimensions()[0] + 1;
+        int depth = my_light_array.getDimensions()[2] + 1;
+        xCenter = new double[width];
+        zCenter = new double[depth];
+
+        // Count the lights in each (x, z) cell, then lay out the cells
+        // that have any as columns.
+        int cellCount[] = new int[width * depth];
+        for (Light light : my_light_array.getLights()) {
+            cellCount[light.ix * depth + light.iz]++;
+        }
+        int columns = 0;
+        for (int count : cellCount) {
+            if (count > 0) {
+                columns++;
+            }
+        }
+        columnX = new int[columns];
+        columnZ = new int[columns];
+        columnStart = new int[columns + 1];
+        int cellColumn[] = new int[width * depth];
+        for (int cell = 0, c = 0; cell < cellCount.length; cell++) {
+            if (cellCount[cell] > 0) {
+                columnX[c] = cell / depth;
+                columnZ[c] = cell % depth;
+                columnStart[c + 1] = columnStart[c] + cellCount[cell];
+                cellColumn[cell] = c++;
+            }
+        }
+        columnLights = new int[my_light_array.getLightCount()];
+        columnY = new double[my_light_array.getLightCount()];
+        int fill[] = Arrays.copyOf(columnStart, columns);
+        for (Light light : my_light_array.getLights()) {
+            int k = fill[cellColumn[light.ix * depth + light.iz]]++;
+            columnLights[k] = light.index;
+            columnY[k] = light.y;
+        }
     }
     
     @Override
     public boolean step(double time) {
-        
-        clearLights();
-        
         double theta = time * 3;  // Can add multiplier here.
         
-        
-        int width = 17;
-        int depth = 5;
-//        double xWaveMax[] = new double[width];
-//        double xWaveMin[] = new double[width];
-        double xCenter[] = new double[width];
-        double zCenter[] = new double[depth];
-        
         double xHalfAmp = modulateValue(X_HALF_AMP_MIN, X_HALF_AMP_MAX, X_AMP_PERIOD, theta);
         double xLength = modulateValue(X_LENGTH_MIN, X_LENGTH_MAX, X_LENGTH_PERIOD, theta);
         double xWidth = modulateValue(X_WIDTH_MIN, X_WIDTH_MAX, X_WIDTH_PERIOD, theta);
@@ -61,68 +97,55 @@ public class WaveController extends LightController {
         // The phase is a [0..1] value that determines which curve dominates in the final
         // value.
         double yOffsetPhase = modulateValue(0, 1, Y_OFFSET_PERIOD_MUL_PERIOD, theta);
-        double yOffsetSlow = Math.sin(theta * Math.PI / (Y_OFFSET_PERIOD * Y_OFFSET_PERIOD_MUL_MAX));
-        double yOffsetFast = Math.sin(theta * Math.PI / (Y_OFFSET_PERIOD * Y_OFFSET_PERIOD_MUL_MIN));
+        double yOffsetSlow = LSUtils.sin(theta * Math.PI / (Y_OFFSET_PERIOD * Y_OFFSET_PERIOD_MUL_MAX));
+        double yOffsetFast = LSUtils.sin(theta * Math.PI / (Y_OFFSET_PERIOD * Y_OFFSET_PERIOD_MUL_MIN));
         double yOffsetHalfAmp = (Y_OFFSET_MAX - Y_OFFSET_MIN) / 2.0;
         double yOffset = yOffsetHalfAmp * (Y_OFFSET_MIN + (yOffsetPhase * yOffsetSlow + (1.0 - yOffsetPhase) * yOffsetFast));
         
-        double colorProgTime = time / COLOR_PERIOD; 
-        Color currentColor = Colors.sixColorProg(colorProgTime - Math.floor(colorProgTime));
+        int currentColor = Palettes.choose(Palettes.SIX_COLOR).sample(time / COLOR_PERIOD);
         
         // Precompute the wave center at each point.
-        for (int i = 0; i < width; i++) {
-//            xWaveMax[i] = X_HALF_WIDTH + X_HALF_AMP * Math.sin(theta + i);
-//            xWaveMin[i] = -X_HALF_WIDTH + X_HALF_AMP * Math.sin(theta + i);
-            xCenter[i] = xHalfAmp * Math.sin(theta + i * Math.PI / xLength);
-//            xWaveMax[i] = xCenter[i] + X_HALF_WIDTH;
-//            xWaveMin[i] = xCenter[i] - X_HALF_WIDTH;
+        for (int i = 0; i < xCenter.length; i++) {
+            xCenter[i] = xHalfAmp * LSUtils.sin(theta + i * Math.PI / xLength);
         }
-        for (int i = 0; i < depth; i++) {
-            zCenter[i] = xHalfAmp * Math.cos(theta + i * Math.PI / xLength);
+        for (int i = 0; i < zCenter.length; i++) {
+            zCenter[i] = xHalfAmp * LSUtils.cos(theta + i * Math.PI / xLength);
         }
         
-        for (Light light : my_light_array.getLights()) {
-            int lightX = (int)Math.round(light.x + 8);
-            int lightZ = (int)Math.round(light.z + 2);
-            double waveCenter = (xCenter[lightX] + zCenter[lightZ] + yOffset);
+        double falloff = 4 / xWidth;
+        for (int c = 0; c < columnX.length; c++) {
+            double waveCenter = xCenter[columnX[c]] + zCenter[columnZ[c]] + yOffset;
             while (waveCenter > 5) {
                 waveCenter -= 10;
             }
             while (waveCenter < -5) {
                 waveCenter += 10;
             }
-//            if (waveCenter < -5) {
-//                waveCenter += 10;
-//            }
-//            if (lightX == 0 && lightZ == 0) {
-//                Console.log("center: %f", waveCenter);
-//            }  
-            
-            double distanceFromCenter = 0;
-            if (light.y > waveCenter) {
-                distanceFromCenter = Math.min(light.y - waveCenter, waveCenter + 10 - light.y);
-            } else {
-                distanceFromCenter = Math.min(waveCenter - light.y, light.y - (waveCenter - 10));
+
+            int end = columnStart[c + 1];
+            for (int k = columnStart[c]; k < end; k++) {
+                double y = columnY[k];
+                double distanceFromCenter;
+                if (y > waveCenter) {
+                    distanceFromCenter = Math.min(y - waveCenter, waveCenter + 10 - y);
+                } else {
+                    distanceFromCenter = Math.min(waveCenter - y, y - (waveCenter - 10));
+                }
+                double intensity = clamp(2 - distanceFromCenter * falloff, 0, 1);
+                store[columnLights[k]] = colorWithIntensity(currentColor, intensity);
             }
-//            distanceFromCenter = Math.abs(waveCenter - light.y);
-            
-            double intensity = clamp(2 - (distanceFromCenter / (xWidth / 4)), 0, 1);
-            light.setColor(colorWithIntensity(currentColor, intensity));
-//            if (light.y < xWaveMax[lightX] && light.y > xWaveMin[lightX]) {
-//                light.setColor(Color.white);
-//            }
         }
         return true;
     }
     
-    private Color colorWithIntensity(Color color, double intensity) {
+    private int colorWithIntensity(int rgb, double intensity) {
         if (intensity == 1) {
-            return color;
+            return rgb;
+        }
+        if (intensity == 0) {
+            return 0;
         }
-        float RGB[] = new float[3];
-        color.getColorComponents(RGB);
-        float fIntensity = (float)intensity;
-        return new Color(RGB[0] * fIntensity, RGB[1] * fIntensity, RGB[2] * fIntensity);
+        return Colors.scale(rgb, intensity);
     }
     
     private double modulateValue(double min, double max, double period, double theta) {